@@ -0,0 +1,46 @@
+package night.votes.benchmarks;
+
+import night.votes.utils.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Utils.colorize on the kinds of strings the plugin sends: cached config messages, hex colors,
+// long lines past the cache limit and plain text without codes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColorizeBenchmark {
+
+    private final String legacyCodes = "&6[NightVote] &eA vote has started to skip the night in world 'world'!";
+    private final String hexCodes = "#FFAA00[NightVote] #55FF55Yes: 3 &7| #FF5555No: 1";
+    private final String plainText = "A vote has started to skip the night in world 'world'!";
+    private final String longLine = "&e" + "The night vote in world 'world' is still running, ".repeat(8) + "&atype Y or N";
+
+    @Benchmark
+    public String legacyCodesCached() {
+        return Utils.colorize(legacyCodes);
+    }
+
+    @Benchmark
+    public String hexCodesCached() {
+        return Utils.colorize(hexCodes);
+    }
+
+    @Benchmark
+    public String plainText() {
+        return Utils.colorize(plainText);
+    }
+
+    @Benchmark
+    public String longLineUncached() {
+        return Utils.colorize(longLine);
+    }
+}
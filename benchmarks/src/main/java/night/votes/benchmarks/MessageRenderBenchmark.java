@@ -0,0 +1,61 @@
+package night.votes.benchmarks;
+
+import night.votes.utils.MessageTemplate;
+import night.votes.utils.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Placeholder expansion behind NightVote.getMessage: the compiled templates MessageManager renders,
+// next to the replace-then-colorize loop they replaced, as a baseline.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageRenderBenchmark {
+
+    private static final String PREFIX = "&6[NightVote] ";
+    private static final String VOTE_ENDED = "&eVote ended in %world%. &aYes: %yes_votes%&e, &cNo: %no_votes%&e. Required: %required_percentage%%.";
+
+    private MessageTemplate prefix;
+    private MessageTemplate voteEnded;
+    private Map<String, String> placeholders;
+
+    @Setup
+    public void setup() {
+        prefix = MessageTemplate.compile(PREFIX);
+        voteEnded = MessageTemplate.compile(VOTE_ENDED);
+        placeholders = new HashMap<>();
+        placeholders.put("world", "world");
+        placeholders.put("yes_votes", "12");
+        placeholders.put("no_votes", "3");
+        placeholders.put("required_percentage", "50");
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        StringBuilder builder = new StringBuilder(64);
+        prefix.renderTo(builder, placeholders);
+        voteEnded.renderTo(builder, placeholders);
+        return builder.toString();
+    }
+
+    @Benchmark
+    public String replaceLoopBaseline() {
+        String message = PREFIX + VOTE_ENDED;
+        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+            message = message.replace("%" + entry.getKey() + "%", entry.getValue());
+        }
+        return Utils.colorize(message);
+    }
+}
@@ -0,0 +1,77 @@
+package night.votes.benchmarks;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Minimal World/Player stand-ins for running plugin code outside a server. Only the getters the
+// benchmarked and simulated code calls answer, anything else returns null/0/false.
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    public static World world(String name) {
+        return world(UUID.nameUUIDFromBytes(name.getBytes()), name, Collections::emptyList, () -> 0L, newTime -> { });
+    }
+
+    // A world whose players and time live elsewhere, e.g. in a simulated server
+    public static World world(UUID id, String name, Supplier<List<Player>> players, LongSupplier time, LongConsumer setTime) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName": return name;
+                case "getUID": return id;
+                case "getEnvironment": return World.Environment.NORMAL;
+                case "getPlayers": return players.get();
+                case "getTime": return time.getAsLong();
+                case "setTime": setTime.accept((Long) args[0]); return null;
+                case "hashCode": return id.hashCode();
+                case "equals": return proxy == args[0];
+                case "toString": return "World[" + name + "]";
+                default: return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    public static Player player(String name, World world) {
+        return player(UUID.nameUUIDFromBytes(("player:" + name).getBytes()), name, () -> world, () -> true);
+    }
+
+    // A player who can change worlds and go offline, the state lives with the caller
+    public static Player player(UUID id, String name, Supplier<World> world, BooleanSupplier online) {
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName": return name;
+                case "getUniqueId": return id;
+                case "getWorld": return world.get();
+                case "isOnline": return online.getAsBoolean();
+                case "hasPermission": return true;
+                case "getLocale": return "en_us";
+                case "hashCode": return id.hashCode();
+                case "equals": return proxy == args[0];
+                case "toString": return "Player[" + name + "]";
+                default: return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0d;
+        if (type == float.class) return 0.0f;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+}
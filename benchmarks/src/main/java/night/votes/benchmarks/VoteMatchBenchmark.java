@@ -0,0 +1,30 @@
+package night.votes.benchmarks;
+
+import night.votes.utils.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Chat vote matching as PlayerChatListener does it, on every chat line while a vote runs.
+// Most lines are ordinary chat, so the miss path matters as much as the vote path.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoteMatchBenchmark {
+
+    @Param({"Y", " yes ", "No", "nope", "anyone got spare iron? heading to the mine"})
+    private String message;
+
+    @Benchmark
+    public Boolean parseVoteChoice() {
+        return Utils.parseVoteChoice(message);
+    }
+}
@@ -0,0 +1,85 @@
+package night.votes.managers;
+
+import night.votes.benchmarks.Stubs;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// The vote bookkeeping VoteManager does per vote and per quit, on a VoteSession of the given size.
+// Lives in night.votes.managers for the package-private session methods. One op is a whole vote,
+// so divide by the voter count for the per-vote cost.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoteTallyBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int voters;
+
+    private World world;
+    private UUID[] voterIds;
+
+    @Setup
+    public void setup() {
+        world = Stubs.world("world");
+        voterIds = new UUID[voters];
+        for (int i = 0; i < voters; i++) {
+            voterIds[i] = new UUID(0L, i);
+        }
+    }
+
+    private VoteSession newSession() {
+        Set<UUID> eligible = new HashSet<>(voters * 2);
+        for (UUID id : voterIds) {
+            eligible.add(id);
+        }
+        return new VoteSession(1L, world, false, eligible);
+    }
+
+    // Everyone votes, with the everyone-voted check VoteManager runs after each vote
+    @Benchmark
+    public boolean tally() {
+        VoteSession session = newSession();
+        for (int i = 0; i < voterIds.length; i++) {
+            session.recordVote(voterIds[i], (i & 1) == 0);
+            if (session.hasEveryoneVoted()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Everyone votes, then everyone quits, as in VoteManager.removeVoter
+    @Benchmark
+    public void tallyThenQuit(Blackhole blackhole) {
+        VoteSession session = newSession();
+        for (int i = 0; i < voterIds.length; i++) {
+            session.recordVote(voterIds[i], (i & 1) == 0);
+        }
+        for (UUID id : voterIds) {
+            boolean wasEligible = session.removeEligible(id);
+            blackhole.consume(session.removeVote(id));
+            if (wasEligible) {
+                blackhole.consume(session.getEligibleCount() == 0 || session.hasEveryoneVoted());
+            }
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package night.votes.simulator;
+
+import night.votes.history.VoteOutcome;
+import night.votes.history.VoteRecord;
+import night.votes.listeners.PlayerChatListener;
+import night.votes.managers.Broadcaster;
+import night.votes.managers.VoteManager;
+import night.votes.managers.VoteQueue;
+import night.votes.tasks.VoteDrainTask;
+import night.votes.utils.Utils;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Drives the real VoteManager through whole votes with thousands of synthetic players on a virtual tick clock:
+ * randomized chat votes (through PlayerChatListener and VoteDrainTask), quits, joins and world changes.
+ * Every outcome is checked against an independent model of the tally, and the CPU time and allocation of
+ * the plugin's work is reported per tick for each phase of a vote.
+ *
+ * Usage: java -cp target/benchmarks.jar night.votes.simulator.LoadSimulator [players=10000] [rounds=5]
+ *        [warmup=2] [seed=1] [duration=30] [announce=true] [early=true] [grace=0] [required=0.51]
+ */
+public class LoadSimulator {
+
+    private static final String[] CHAT_LINES = {"y", "Y", "yes", "YES", " yes ", "n", "No", "no", "hello", "nope", "yes please", "gg"};
+
+    private final int initialPlayers;
+    private final int durationSeconds;
+    private final boolean earlyDecision;
+    private final long graceTicks;
+    private final Random random;
+    private final SimulatedServer server;
+    private final VoteManager voteManager;
+    private final VoteQueue voteQueue = new VoteQueue();
+    private final PlayerChatListener chatListener;
+    private final VoteDrainTask drainTask;
+    private final World voteWorld;
+    private final World otherWorld;
+    private final List<VoteRecord> outcomes = new ArrayList<>();
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<String, PhaseStats> phases = new HashMap<>();
+    private final List<String> violations = new ArrayList<>();
+    private int nextPlayerNumber = 0;
+
+    public LoadSimulator(int players, int durationSeconds, boolean announce, boolean earlyDecision, int graceSeconds,
+                         double requiredYesPercentage, long seed) throws Exception {
+        this.initialPlayers = players;
+        this.durationSeconds = durationSeconds;
+        this.earlyDecision = earlyDecision;
+        this.graceTicks = graceSeconds * 20L;
+        this.random = new Random(seed);
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("vote.duration_seconds", durationSeconds);
+        overrides.put("vote.min_players_to_start_manual", 1);
+        overrides.put("display.announce_each_vote", announce);
+        overrides.put("vote.early_decision.enabled", earlyDecision);
+        overrides.put("vote.early_decision.grace_seconds", graceSeconds);
+        overrides.put("vote.required_yes_percentage", requiredYesPercentage);
+        this.server = new SimulatedServer(overrides);
+        this.voteManager = new VoteManager(server, new Broadcaster(server));
+        this.voteManager.addOutcomeListener(outcomes::add);
+        this.chatListener = new PlayerChatListener(server, voteManager, voteQueue);
+        this.drainTask = new VoteDrainTask(voteManager, voteQueue);
+
+        this.voteWorld = server.createWorld("world");
+        this.otherWorld = server.createWorld("world_mining");
+        for (int i = 0; i < players; i++) {
+            server.join(nextPlayerName(), i % 10 == 0 ? otherWorld : voteWorld);
+        }
+        for (String phase : new String[]{"start", "voting", "end"}) {
+            phases.put(phase, new PhaseStats(phase));
+        }
+    }
+
+    private String nextPlayerName() {
+        return "sim" + (nextPlayerNumber++);
+    }
+
+    // One vote from start to outcome. Returns false if it did not end in time.
+    private boolean runRound(int round, boolean record) {
+        int outcomesBefore = outcomes.size();
+        server.setTime(voteWorld, 13000L);
+        // Churn drains the vote world over the rounds, top it back up so every vote starts at full size
+        int target = initialPlayers - initialPlayers / 10;
+        for (int missing = target - server.getPlayers(voteWorld).size(); missing > 0; missing--) {
+            server.join(nextPlayerName(), voteWorld);
+        }
+
+        // Independent model of what the tally must be
+        Set<UUID> eligible = new HashSet<>();
+        for (Player player : server.getPlayers(voteWorld)) {
+            eligible.add(player.getUniqueId());
+        }
+        Map<UUID, Boolean> votes = new HashMap<>();
+
+        long startTick = server.getCurrentTick();
+        long cpu = threads.getCurrentThreadCpuTime();
+        long alloc = threads.getCurrentThreadAllocatedBytes();
+        boolean started = voteManager.startVote(voteWorld, true, null);
+        if (record) {
+            phases.get("start").add(threads.getCurrentThreadCpuTime() - cpu, threads.getCurrentThreadAllocatedBytes() - alloc);
+        }
+        if (!started) {
+            violations.add("round " + round + ": vote did not start");
+            return false;
+        }
+
+        long dueTick = startTick + durationSeconds * 20L;
+        boolean modelEnded = false;
+        long modelEndTick = -1;
+        VoteOutcome expectedOutcome = null;
+        long settledAtTick = -1; // Early decision waiting out its grace window
+        int chatsPerTick = Math.max(1, (int) (initialPlayers * 2L / (durationSeconds * 20L)));
+        int churnPerTick = Math.max(1, initialPlayers / 2000);
+
+        while (server.getCurrentTick() < dueTick + 5) {
+            // Plan the tick: move the simulated server and the model, queue the plugin calls
+            List<Runnable> calls = new ArrayList<>();
+            Set<UUID> touched = new HashSet<>();
+            List<Player> online = server.getOnlinePlayerList();
+
+            for (int i = 0; i < churnPerTick && !online.isEmpty(); i++) {
+                Player player = online.get(random.nextInt(online.size()));
+                if (!touched.add(player.getUniqueId())) continue;
+                World from = player.getWorld();
+                boolean leftVoteWorld = from.equals(voteWorld);
+                switch (random.nextInt(3)) {
+                    case 0: // Quit, the quit handler runs with the Player object of the departed player
+                        server.quit(player);
+                        calls.add(() -> voteManager.handlePlayerQuit(player));
+                        break;
+                    case 1: // World change
+                        server.moveTo(player, leftVoteWorld ? otherWorld : voteWorld);
+                        calls.add(() -> voteManager.handlePlayerChangedWorld(player, from));
+                        break;
+                    default: // Someone new joins, not eligible for the running vote
+                        server.join(nextPlayerName(), random.nextBoolean() ? voteWorld : otherWorld);
+                        leftVoteWorld = false;
+                        break;
+                }
+                if (leftVoteWorld && !modelEnded && eligible.remove(player.getUniqueId())) {
+                    votes.remove(player.getUniqueId());
+                    if (eligible.isEmpty()) {
+                        modelEnded = true;
+                        expectedOutcome = VoteOutcome.CANCELLED;
+                    } else if (votes.size() >= eligible.size()) {
+                        modelEnded = true;
+                        expectedOutcome = expectedResult(eligible.size(), votes);
+                    } else if (earlyDecision && settledAtTick < 0 && isDecided(eligible.size(), votes)) {
+                        if (graceTicks == 0) {
+                            modelEnded = true;
+                            expectedOutcome = expectedResult(eligible.size(), votes);
+                        } else {
+                            settledAtTick = server.getCurrentTick();
+                        }
+                    }
+                    if (modelEnded) modelEndTick = server.getCurrentTick() + 1;
+                }
+            }
+
+            online = server.getOnlinePlayerList();
+            Set<UUID> votedThisTick = new HashSet<>();
+            for (int i = 0; i < chatsPerTick && !online.isEmpty(); i++) {
+                Player player = online.get(random.nextInt(online.size()));
+                if (touched.contains(player.getUniqueId())) continue;
+                String line = CHAT_LINES[random.nextInt(CHAT_LINES.length)];
+                calls.add(() -> chatListener.onPlayerChat(new AsyncPlayerChatEvent(true, player, line, Collections.emptySet())));
+                Boolean choice = Utils.parseVoteChoice(line);
+                if (!modelEnded && choice != null && player.getWorld().equals(voteWorld) && votedThisTick.add(player.getUniqueId())
+                        && eligible.contains(player.getUniqueId())) {
+                    votes.putIfAbsent(player.getUniqueId(), choice);
+                }
+            }
+            if (!modelEnded && !eligible.isEmpty() && votes.size() >= eligible.size()) {
+                modelEnded = true;
+                expectedOutcome = expectedResult(eligible.size(), votes);
+                modelEndTick = server.getCurrentTick() + 1;
+            }
+            if (!modelEnded && earlyDecision && settledAtTick < 0 && !votedThisTick.isEmpty() && isDecided(eligible.size(), votes)) {
+                if (graceTicks == 0) {
+                    modelEnded = true;
+                    expectedOutcome = expectedResult(eligible.size(), votes);
+                    modelEndTick = server.getCurrentTick() + 1;
+                } else {
+                    settledAtTick = server.getCurrentTick();
+                }
+            }
+            if (!modelEnded && settledAtTick >= 0 && server.getCurrentTick() + 1 >= settledAtTick + graceTicks) {
+                // The grace task re-checks: a YES voter leaving in the meantime can unsettle the outcome
+                if (isDecided(eligible.size(), votes)) {
+                    modelEnded = true;
+                    expectedOutcome = expectedResult(eligible.size(), votes);
+                    modelEndTick = server.getCurrentTick() + 1;
+                }
+                settledAtTick = -1;
+            }
+            if (!modelEnded && server.getCurrentTick() + 1 >= dueTick) {
+                modelEnded = true;
+                expectedOutcome = expectedResult(eligible.size(), votes);
+                modelEndTick = dueTick;
+            }
+
+            // Measured: only the plugin's work for this tick
+            cpu = threads.getCurrentThreadCpuTime();
+            alloc = threads.getCurrentThreadAllocatedBytes();
+            for (Runnable call : calls) {
+                call.run();
+            }
+            drainTask.run();
+            server.tick();
+            long tickCpu = threads.getCurrentThreadCpuTime() - cpu;
+            long tickAlloc = threads.getCurrentThreadAllocatedBytes() - alloc;
+
+            boolean ended = outcomes.size() > outcomesBefore;
+            if (record) {
+                phases.get(ended ? "end" : "voting").add(tickCpu, tickAlloc);
+            }
+            if (ended) {
+                checkOutcome(round, expectedOutcome, modelEndTick, eligible.size(), votes);
+                return true;
+            }
+        }
+        violations.add("round " + round + ": no outcome by tick " + server.getCurrentTick() + " (due " + dueTick + ")");
+        return false;
+    }
+
+    private VoteOutcome expectedResult(int eligibleCount, Map<UUID, Boolean> votes) {
+        if (eligibleCount == 0) return VoteOutcome.CANCELLED;
+        long yes = votes.values().stream().filter(Boolean::booleanValue).count();
+        double required = server.getSettings().getRequiredYesPercentage();
+        return yes > 0 && (double) yes / eligibleCount >= required ? VoteOutcome.PASSED : VoteOutcome.FAILED;
+    }
+
+    // Same rule as VoteSession.isDecided, written out independently
+    private boolean isDecided(int eligibleCount, Map<UUID, Boolean> votes) {
+        if (eligibleCount == 0) return false;
+        long yes = votes.values().stream().filter(Boolean::booleanValue).count();
+        long no = votes.size() - yes;
+        double required = server.getSettings().getRequiredYesPercentage();
+        if (yes > 0 && (double) yes / eligibleCount >= required) return true;
+        long maxYes = eligibleCount - no;
+        return maxYes <= 0 || (double) maxYes / eligibleCount < required;
+    }
+
+    private void checkOutcome(int round, VoteOutcome expected, long expectedTick, int eligibleCount, Map<UUID, Boolean> votes) {
+        String prefix = "round " + round + ": ";
+        if (outcomes.size() != round + 1) {
+            violations.add(prefix + "expected one outcome per vote, have " + outcomes.size() + " after " + (round + 1) + " votes");
+        }
+        VoteRecord record = outcomes.get(outcomes.size() - 1);
+        int yes = (int) votes.values().stream().filter(Boolean::booleanValue).count();
+        int no = votes.size() - yes;
+        if (record.getOutcome() != expected) {
+            violations.add(prefix + "outcome " + record.getOutcome() + ", model expects " + expected);
+        }
+        if (server.getCurrentTick() != expectedTick) {
+            violations.add(prefix + "ended at tick " + server.getCurrentTick() + ", model expects " + expectedTick);
+        }
+        if (expected != VoteOutcome.CANCELLED && (record.getYesVotes() != yes || record.getNoVotes() != no
+                || record.getEligibleVoters() != eligibleCount)) {
+            violations.add(prefix + "tally " + record.getYesVotes() + "/" + record.getNoVotes() + " of " + record.getEligibleVoters()
+                    + ", model expects " + yes + "/" + no + " of " + eligibleCount);
+        }
+        if (record.getYesVotes() + record.getNoVotes() > record.getEligibleVoters()) {
+            violations.add(prefix + "more votes than eligible voters");
+        }
+        if (voteManager.isVoteActive(voteWorld)) {
+            violations.add(prefix + "session still active after its outcome");
+        }
+        if (server.getPendingTaskCount() != 0) {
+            violations.add(prefix + server.getPendingTaskCount() + " scheduled task(s) left behind");
+        }
+        boolean isDay = server.getTime(voteWorld) == server.getSettings().getDayStartTick();
+        if ((record.getOutcome() == VoteOutcome.PASSED) != isDay) {
+            violations.add(prefix + "world time " + server.getTime(voteWorld) + " does not match outcome " + record.getOutcome());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                System.err.println("Arguments are key=value, e.g. players=10000 rounds=5");
+                System.exit(2);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        int players = Integer.parseInt(options.getOrDefault("players", "10000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "5"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "2"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        boolean announce = Boolean.parseBoolean(options.getOrDefault("announce", "true"));
+        boolean early = Boolean.parseBoolean(options.getOrDefault("early", "true"));
+        int grace = Integer.parseInt(options.getOrDefault("grace", "0"));
+        double required = Double.parseDouble(options.getOrDefault("required", "0.51"));
+
+        LoadSimulator simulator = new LoadSimulator(players, duration, announce, early, grace, required, seed);
+        int round = 0;
+        for (int i = 0; i < warmup; i++) {
+            simulator.runRound(round++, false);
+        }
+        for (int i = 0; i < rounds; i++) {
+            simulator.runRound(round++, true);
+        }
+
+        System.out.println("NightVote load simulation: " + players + " players, " + rounds + " measured votes (+" + warmup
+                + " warmup), " + duration + "s votes" + (early ? ", early decision after " + grace + "s" : "") + ", seed " + seed);
+        for (int i = 0; i < simulator.outcomes.size(); i++) {
+            VoteRecord record = simulator.outcomes.get(i);
+            System.out.println("  vote " + i + ": " + record.getOutcome() + " " + record.getYesVotes() + " yes / "
+                    + record.getNoVotes() + " no of " + record.getEligibleVoters() + " eligible");
+        }
+        System.out.println(PhaseStats.header());
+        for (String phase : new String[]{"start", "voting", "end"}) {
+            System.out.println(simulator.phases.get(phase));
+        }
+        System.out.println("Broadcast fan-out: " + simulator.voteManager.getBroadcaster().getMessagesSent() + " messages, "
+                + simulator.voteManager.getBroadcaster().getBytesSent() / 1024 + " KB");
+        if (simulator.violations.isEmpty()) {
+            System.out.println("All invariants held.");
+        } else {
+            System.out.println(simulator.violations.size() + " invariant violation(s):");
+            simulator.violations.forEach(violation -> System.out.println("  " + violation));
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package night.votes.simulator;
+
+import night.votes.history.VoteOutcome;
+import night.votes.history.VoteRecord;
+import night.votes.managers.Broadcaster;
+import night.votes.managers.SessionView;
+import night.votes.managers.VoteManager;
+import night.votes.managers.VoteQueue;
+import night.votes.managers.VoteSnapshotStore;
+import night.votes.network.LoopbackTransport;
+import night.votes.network.NetworkTransport;
+import night.votes.network.NetworkVoteSync;
+import night.votes.network.SocketTransport;
+import night.votes.tasks.VoteDrainTask;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Runs network votes between a coordinator and a shard, each a SimulatedServer with the real VoteManager and
+ * NetworkVoteSync, over the in-process LoopbackTransport and over SocketTransport on localhost. The scenarios are
+ * the ones where a shard's session starts after the round opened: a late /nv start on the shard, and a vote the
+ * shard saves, suspends and restores mid-round. Both nodes must end every vote with the network totals.
+ * Early decisions are on, and each node's own tally is settled before the network's, so a networked vote
+ * that ended on its local count would show up as a wrong outcome.
+ *
+ * Usage: java -cp target/benchmarks.jar night.votes.simulator.NetworkSimulator [socket=true]
+ */
+public class NetworkSimulator {
+
+    private static final String WORLD = "world";
+    private static final int COORDINATOR_PLAYERS = 3;
+    private static final int SHARD_PLAYERS = 5;
+    private static final int MAX_TICKS = 400;
+
+    private final long tickSleepMillis; // Real time per tick, so socket messages arrive between ticks
+    private final Node coordinator;
+    private final Node shard;
+    private final List<String> violations = new ArrayList<>();
+
+    private NetworkSimulator(String name, NetworkTransport coordinatorTransport, NetworkTransport shardTransport,
+                             long tickSleepMillis) throws Exception {
+        this.tickSleepMillis = tickSleepMillis;
+        this.coordinator = new Node(name + "-coordinator", true, coordinatorTransport);
+        this.shard = new Node(name + "-shard", false, shardTransport);
+    }
+
+    // A shard that was empty when the round opened joins it with /nv start once its players arrive
+    private void lateStart() throws InterruptedException {
+        coordinator.joinAll(COORDINATOR_PLAYERS);
+        coordinator.voteManager.startVote(coordinator.world, true, null);
+        tick(10);
+        if (shard.voteManager.isVoteActive(shard.world)) {
+            violations.add("late start: shard started a vote with nobody in the world");
+        }
+        coordinator.vote(0, 1, true);
+        shard.joinAll(SHARD_PLAYERS);
+        shard.voteManager.startVote(shard.world, true, null);
+        tick(10);
+        coordinator.vote(1, 1, true);
+        coordinator.vote(2, 1, false);
+        shard.vote(0, 1, true);
+        shard.vote(1, SHARD_PLAYERS - 1, false);
+        runToEnd();
+        check("late start", VoteOutcome.FAILED, 3, 5);
+    }
+
+    // A shard saves its running vote and suspends it, as on disable, then restores it while the round is still open
+    private void restoredVote() throws InterruptedException {
+        coordinator.voteManager.startVote(coordinator.world, true, null);
+        tick(10);
+        if (!shard.voteManager.isVoteActive(shard.world)) {
+            violations.add("restored vote: shard did not join the round");
+        }
+        coordinator.vote(0, 1, true);
+        shard.vote(0, 1, true);
+        tick(10);
+        shard.snapshotStore.save(shard.voteManager);
+        shard.voteManager.suspendAllVotes();
+        tick(30); // The coordinator sees this shard report zero meanwhile
+        shard.snapshotStore.restore(shard.voteManager, true, 60_000L);
+        if (!shard.voteManager.isVoteActive(shard.world)) {
+            violations.add("restored vote: snapshot did not bring the vote back");
+        }
+        tick(10);
+        coordinator.vote(1, 1, true);
+        coordinator.vote(2, 1, false);
+        shard.vote(1, SHARD_PLAYERS - 1, false);
+        runToEnd();
+        check("restored vote", VoteOutcome.FAILED, 3, 5);
+    }
+
+    private void check(String scenario, VoteOutcome expected, int yesVotes, int noVotes) {
+        int eligible = COORDINATOR_PLAYERS + SHARD_PLAYERS;
+        for (Node node : List.of(coordinator, shard)) {
+            String prefix = scenario + ", " + node.name + ": ";
+            if (node.voteManager.isVoteActive(node.world)) {
+                violations.add(prefix + "vote still running after " + MAX_TICKS + " ticks");
+            }
+            if (node.outcomes.size() != 1) {
+                violations.add(prefix + "expected one outcome, have " + node.outcomes.size());
+            }
+            for (VoteRecord record : node.outcomes) {
+                if (record.getOutcome() != expected || record.getYesVotes() != yesVotes || record.getNoVotes() != noVotes
+                        || record.getEligibleVoters() != eligible) {
+                    violations.add(prefix + record.getOutcome() + " " + record.getYesVotes() + "/" + record.getNoVotes() + " of "
+                            + record.getEligibleVoters() + ", network totals are " + expected + " " + yesVotes + "/" + noVotes
+                            + " of " + eligible);
+                }
+            }
+            node.outcomes.clear();
+        }
+    }
+
+    private void runToEnd() throws InterruptedException {
+        for (int t = 0; t < MAX_TICKS && (coordinator.voteManager.isVoteActive() || shard.voteManager.isVoteActive()); t++) {
+            tick(1);
+        }
+        tick(5); // Let the last result reach both nodes
+    }
+
+    private void tick(int ticks) throws InterruptedException {
+        for (int i = 0; i < ticks; i++) {
+            coordinator.tick();
+            shard.tick();
+            if (tickSleepMillis > 0) Thread.sleep(tickSleepMillis);
+        }
+    }
+
+    private void close() {
+        shard.sync.close(); // Shard first, so it does not log the coordinator going away
+        coordinator.sync.close();
+    }
+
+    private static final class Node {
+        private final String name;
+        private final SimulatedServer server;
+        private final VoteManager voteManager;
+        private final NetworkVoteSync sync;
+        private final VoteQueue voteQueue = new VoteQueue();
+        private final VoteDrainTask drainTask;
+        private final VoteSnapshotStore snapshotStore;
+        private final World world;
+        private final List<Player> players = new ArrayList<>();
+        private final List<VoteRecord> outcomes = new ArrayList<>();
+
+        Node(String name, boolean coordinator, NetworkTransport transport) throws Exception {
+            this.name = name;
+            Map<String, Object> overrides = new HashMap<>();
+            overrides.put("vote.duration_seconds", 10);
+            overrides.put("vote.min_players_to_start_manual", 1);
+            overrides.put("vote.early_decision.enabled", true);
+            overrides.put("vote.early_decision.grace_seconds", 0);
+            overrides.put("network.enabled", true);
+            overrides.put("network.node_id", name);
+            overrides.put("network.coordinator", coordinator);
+            overrides.put("network.worlds", Collections.singletonList(WORLD));
+            overrides.put("network.secret", "simulator");
+            this.server = new SimulatedServer(overrides);
+            this.voteManager = new VoteManager(server, new Broadcaster(server));
+            this.voteManager.addOutcomeListener(outcomes::add);
+            this.sync = new NetworkVoteSync(server, voteManager, transport);
+            this.voteManager.setNetworkSync(sync);
+            this.sync.start();
+            this.drainTask = new VoteDrainTask(voteManager, voteQueue);
+            this.snapshotStore = new VoteSnapshotStore(new File(server.getDataFolder(), "vote-state.dat"), server, server.getLogger());
+            this.world = server.createWorld(WORLD);
+        }
+
+        void joinAll(int count) {
+            for (int i = players.size(); i < count; i++) {
+                players.add(server.join(name + "-player" + i, world));
+            }
+        }
+
+        // Nothing to vote in if the vote here already ended, which check() then reports
+        void vote(int from, int count, boolean yes) {
+            SessionView session = voteManager.getSessionViews().get(world.getUID());
+            if (session == null) return;
+            for (int i = from; i < from + count; i++) {
+                voteQueue.submit(players.get(i).getUniqueId(), session, yes);
+            }
+        }
+
+        // One server tick in the order the plugin schedules it: queued votes, network messages, then due tasks
+        void tick() {
+            drainTask.run();
+            sync.tick();
+            server.tick();
+        }
+    }
+
+    private static List<String> run(String name, NetworkTransport coordinatorTransport, NetworkTransport shardTransport,
+                                    long tickSleepMillis, long connectMillis) throws Exception {
+        NetworkSimulator simulator = new NetworkSimulator(name, coordinatorTransport, shardTransport, tickSleepMillis);
+        try {
+            Thread.sleep(connectMillis);
+            simulator.lateStart();
+            simulator.restoredVote();
+        } finally {
+            simulator.close();
+        }
+        System.out.println("  " + name + ": " + (simulator.violations.isEmpty() ? "ok" : simulator.violations.size() + " violation(s)"));
+        simulator.violations.replaceAll(violation -> name + ": " + violation);
+        return simulator.violations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean socket = true;
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !pair[0].equals("socket")) {
+                System.err.println("Arguments are key=value, e.g. socket=false");
+                System.exit(2);
+            }
+            socket = Boolean.parseBoolean(pair[1]);
+        }
+
+        System.out.println("NightVote network simulation: " + COORDINATOR_PLAYERS + " players on the coordinator, "
+                + SHARD_PLAYERS + " on the shard");
+        List<String> violations = new ArrayList<>();
+        LoopbackTransport.Hub hub = new LoopbackTransport.Hub();
+        violations.addAll(run("loopback", new LoopbackTransport(hub, true), new LoopbackTransport(hub, false), 0L, 0L));
+        if (socket) {
+            int port;
+            try (ServerSocket probe = new ServerSocket(0)) {
+                port = probe.getLocalPort();
+            }
+            Logger logger = Logger.getLogger("NightVote-Simulator");
+            violations.addAll(run("socket",
+                    new SocketTransport("socket-coordinator", "127.0.0.1", port, true, "simulator", logger),
+                    new SocketTransport("socket-shard", "127.0.0.1", port, false, "simulator", logger), 5L, 300L));
+        }
+        if (violations.isEmpty()) {
+            System.out.println("All invariants held.");
+        } else {
+            System.out.println(violations.size() + " invariant violation(s):");
+            violations.forEach(violation -> System.out.println("  " + violation));
+            System.exit(1);
+        }
+    }
+}
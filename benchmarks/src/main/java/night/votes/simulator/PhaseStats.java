@@ -0,0 +1,36 @@
+package night.votes.simulator;
+
+// CPU time and allocation of the ticks spent in one phase of a vote, summed over all rounds
+final class PhaseStats {
+
+    private final String name;
+    private long ticks;
+    private long cpuNanos;
+    private long maxCpuNanos;
+    private long allocatedBytes;
+    private long maxAllocatedBytes;
+
+    PhaseStats(String name) {
+        this.name = name;
+    }
+
+    void add(long tickCpuNanos, long tickAllocatedBytes) {
+        ticks++;
+        cpuNanos += tickCpuNanos;
+        maxCpuNanos = Math.max(maxCpuNanos, tickCpuNanos);
+        allocatedBytes += tickAllocatedBytes;
+        maxAllocatedBytes = Math.max(maxAllocatedBytes, tickAllocatedBytes);
+    }
+
+    static String header() {
+        return String.format("%-8s %8s %14s %14s %16s %16s", "phase", "ticks", "cpu us/tick", "max cpu us", "alloc KB/tick", "max alloc KB");
+    }
+
+    @Override
+    public String toString() {
+        long meanCpu = ticks == 0 ? 0 : cpuNanos / ticks;
+        long meanAlloc = ticks == 0 ? 0 : allocatedBytes / ticks;
+        return String.format("%-8s %8d %14.1f %14.1f %16.1f %16.1f", name, ticks,
+                meanCpu / 1000.0, maxCpuNanos / 1000.0, meanAlloc / 1024.0, maxAllocatedBytes / 1024.0);
+    }
+}
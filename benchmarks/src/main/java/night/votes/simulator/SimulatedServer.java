@@ -0,0 +1,347 @@
+package night.votes.simulator;
+
+import night.votes.benchmarks.Stubs;
+import night.votes.config.PluginSettings;
+import night.votes.managers.MessageManager;
+import night.votes.metrics.PluginMetrics;
+import night.votes.server.PluginContext;
+import night.votes.server.ScheduledTask;
+import night.votes.server.ServerPlatform;
+import night.votes.trace.TraceRecorder;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A server without a server: worlds and players are proxies whose state lives here, and tasks run on a
+ * virtual tick clock advanced by tick(). Implements both the platform and the plugin context, so the
+ * real VoteManager, Broadcaster, MessageManager and chat listener run against it unchanged.
+ */
+public class SimulatedServer implements ServerPlatform, PluginContext {
+
+    private final YamlConfiguration config;
+    private final PluginSettings settings;
+    private final PluginMetrics metrics = new PluginMetrics();
+    private final MessageManager messageManager;
+    private final Logger logger = Logger.getLogger("NightVote-Simulator");
+    private final File dataFolder;
+
+    private final Map<UUID, SimWorld> worlds = new LinkedHashMap<>();
+    private final Map<UUID, SimPlayer> onlinePlayers = new LinkedHashMap<>();
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+    private long currentTick = 0;
+    private long taskSequence = 0;
+
+    public SimulatedServer(Map<String, Object> overrides) throws IOException {
+        this(null, overrides);
+    }
+
+    // Settings and messages from configFile, e.g. a production config.yml, or the bundled defaults when null
+    public SimulatedServer(File configFile, Map<String, Object> overrides) throws IOException {
+        this.config = configFile != null ? YamlConfiguration.loadConfiguration(configFile) : loadDefaultConfig();
+        config.set("enabled_worlds_for_auto_vote", Collections.emptyList()); // Votes are started by the simulator
+        config.set("localization.enabled", false);
+        for (Map.Entry<String, Object> entry : overrides.entrySet()) {
+            config.set(entry.getKey(), entry.getValue());
+        }
+        this.settings = PluginSettings.fromConfig(config);
+        this.dataFolder = Files.createTempDirectory("nightvote-sim").toFile();
+        this.dataFolder.deleteOnExit();
+        logger.setLevel(Level.WARNING); // VoteManager logs every vote at INFO
+        this.messageManager = new MessageManager(this);
+        this.messageManager.load();
+    }
+
+    private static YamlConfiguration loadDefaultConfig() throws IOException {
+        try (InputStream in = SimulatedServer.class.getClassLoader().getResourceAsStream("config.yml")) {
+            if (in == null) {
+                throw new IOException("config.yml not found on the classpath, is the plugin jar on it?");
+            }
+            return YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    // --- Virtual clock ---
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    // Advances one tick and runs every task due by then, in scheduling order
+    public void tick() {
+        currentTick++;
+        while (!tasks.isEmpty() && tasks.peek().dueTick <= currentTick) {
+            Task task = tasks.poll();
+            if (task.cancelled) continue;
+            if (task.periodTicks > 0) {
+                task.runnable.run();
+                if (!task.cancelled) { // Repeating, back in line for its next run
+                    task.dueTick = currentTick + task.periodTicks;
+                    task.sequence = taskSequence++;
+                    tasks.add(task);
+                }
+            } else {
+                task.cancelled = true; // Done, a later cancel() is a no-op
+                task.runnable.run();
+            }
+        }
+    }
+
+    public int getPendingTaskCount() {
+        int pending = 0;
+        for (Task task : tasks) {
+            if (!task.cancelled) pending++;
+        }
+        return pending;
+    }
+
+    // Everything runs on the caller's thread, which plays the main thread
+    @Override
+    public boolean isMainThread() {
+        return true;
+    }
+
+    @Override
+    public ScheduledTask runTask(Runnable runnable) {
+        return runTaskLater(runnable, 1L);
+    }
+
+    @Override
+    public ScheduledTask runTaskLater(Runnable runnable, long delayTicks) {
+        return runTaskTimer(runnable, delayTicks, 0L);
+    }
+
+    @Override
+    public ScheduledTask runTaskTimer(Runnable runnable, long delayTicks, long periodTicks) {
+        Task task = new Task(currentTick + Math.max(1L, delayTicks), taskSequence++, periodTicks, runnable);
+        tasks.add(task);
+        return task;
+    }
+
+    @Override
+    public ScheduledTask runForPlayer(Player player, Runnable runnable, long delayTicks) {
+        return runTaskLater(() -> {
+            if (player.isOnline()) runnable.run();
+        }, delayTicks);
+    }
+
+    private static final class Task implements ScheduledTask, Comparable<Task> {
+        private long dueTick;
+        private long sequence;
+        private final long periodTicks; // 0 for a one-shot task
+        private final Runnable runnable;
+        private boolean cancelled;
+
+        Task(long dueTick, long sequence, long periodTicks, Runnable runnable) {
+            this.dueTick = dueTick;
+            this.sequence = sequence;
+            this.periodTicks = periodTicks;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byTick = Long.compare(dueTick, other.dueTick);
+            return byTick != 0 ? byTick : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    // --- Worlds and players ---
+
+    public World createWorld(String name) {
+        return createWorld(UUID.nameUUIDFromBytes(("world:" + name).getBytes(StandardCharsets.UTF_8)), name);
+    }
+
+    public World createWorld(UUID id, String name) {
+        SimWorld world = new SimWorld(id, name);
+        worlds.put(world.id, world);
+        return world.proxy;
+    }
+
+    @Override
+    public World getWorld(UUID id) {
+        SimWorld world = worlds.get(id);
+        return world != null ? world.proxy : null;
+    }
+
+    @Override
+    public World getWorld(String name) {
+        for (SimWorld world : worlds.values()) {
+            if (world.name.equals(name)) return world.proxy;
+        }
+        return null;
+    }
+
+    public long getTime(World world) {
+        return worlds.get(world.getUID()).time;
+    }
+
+    public void setTime(World world, long time) {
+        worlds.get(world.getUID()).time = time;
+    }
+
+    public Player join(String name, World world) {
+        return join(UUID.nameUUIDFromBytes(("player:" + name).getBytes(StandardCharsets.UTF_8)), name, world);
+    }
+
+    public Player join(UUID id, String name, World world) {
+        SimPlayer player = new SimPlayer(id, name, worlds.get(world.getUID()));
+        onlinePlayers.put(player.id, player);
+        player.world.players.put(player.id, player.proxy);
+        return player.proxy;
+    }
+
+    // The Player object keeps answering getWorld() with its last world, as Bukkit's does after a quit
+    public void quit(Player player) {
+        SimPlayer simPlayer = onlinePlayers.remove(player.getUniqueId());
+        if (simPlayer != null) {
+            simPlayer.online = false;
+            simPlayer.world.players.remove(simPlayer.id);
+        }
+    }
+
+    public void moveTo(Player player, World world) {
+        SimPlayer simPlayer = onlinePlayers.get(player.getUniqueId());
+        if (simPlayer == null) return;
+        simPlayer.world.players.remove(simPlayer.id);
+        simPlayer.world = worlds.get(world.getUID());
+        simPlayer.world.players.put(simPlayer.id, simPlayer.proxy);
+    }
+
+    public List<Player> getOnlinePlayerList() {
+        List<Player> players = new ArrayList<>(onlinePlayers.size());
+        for (SimPlayer player : onlinePlayers.values()) {
+            players.add(player.proxy);
+        }
+        return players;
+    }
+
+    @Override
+    public Player getPlayer(UUID playerId) {
+        SimPlayer player = onlinePlayers.get(playerId);
+        return player != null ? player.proxy : null;
+    }
+
+    @Override
+    public Collection<? extends Player> getOnlinePlayers() {
+        return getOnlinePlayerList();
+    }
+
+    @Override
+    public Collection<? extends Player> getPlayers(World world) {
+        return Collections.unmodifiableCollection(worlds.get(world.getUID()).players.values()); // A live view, like the plugin's PresenceIndex
+    }
+
+    @Override
+    public int getPlayerCount(World world) {
+        return worlds.get(world.getUID()).players.size();
+    }
+
+    @Override
+    public boolean canVote(Player player) {
+        return true;
+    }
+
+    private final class SimWorld {
+        private final UUID id;
+        private final String name;
+        private final Map<UUID, Player> players = new LinkedHashMap<>();
+        private final World proxy;
+        private long time = 13000L;
+
+        SimWorld(UUID id, String name) {
+            this.id = id;
+            this.name = name;
+            this.proxy = Stubs.world(id, name, () -> new ArrayList<>(players.values()), () -> time, newTime -> time = newTime);
+        }
+    }
+
+    private static final class SimPlayer {
+        private final UUID id;
+        private final Player proxy;
+        private SimWorld world;
+        private boolean online = true;
+
+        SimPlayer(UUID id, String name, SimWorld world) {
+            this.id = id;
+            this.world = world;
+            this.proxy = Stubs.player(id, name, () -> this.world.proxy, () -> online);
+        }
+    }
+
+    // --- PluginContext ---
+
+    @Override
+    public PluginSettings getSettings() {
+        return settings;
+    }
+
+    @Override
+    public FileConfiguration getConfig() {
+        return config;
+    }
+
+    @Override
+    public File getDataFolder() {
+        return dataFolder;
+    }
+
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    public ServerPlatform getPlatform() {
+        return this;
+    }
+
+    @Override
+    public PluginMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public MessageManager getMessageManager() {
+        return messageManager;
+    }
+
+    @Override
+    public TraceRecorder getTraceRecorder() {
+        return null; // The simulator drives the plugin, it does not record it
+    }
+
+    @Override
+    public String getMessage(CommandSender recipient, String key, Map<String, String> placeholders) {
+        return messageManager.getMessage(recipient, key, placeholders);
+    }
+
+    @Override
+    public String getRawMessage(String key, Map<String, String> placeholders) {
+        return messageManager.getRawMessage(key, placeholders);
+    }
+}
@@ -0,0 +1,235 @@
+package night.votes.simulator;
+
+import night.votes.history.VoteRecord;
+import night.votes.managers.Broadcaster;
+import night.votes.managers.SessionView;
+import night.votes.managers.VoteManager;
+import night.votes.managers.VoteQueue;
+import night.votes.managers.VoteSession;
+import night.votes.tasks.VoteDrainTask;
+import night.votes.trace.TraceEvent;
+import night.votes.trace.TraceReader;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Feeds a trace recorded with /nv trace back into VoteManager on a SimulatedServer, as fast as it will go.
+ * Events keep their recorded tick, so vote timers fire where they did on the live server. Outcomes of the
+ * replay are compared with the recorded ones, which makes a captured busy evening a regression test.
+ *
+ * Usage: java -cp target/benchmarks.jar night.votes.simulator.TraceReplayer <trace.nvt> [config.yml]
+ */
+public class TraceReplayer {
+
+    private final SimulatedServer server;
+    private final VoteManager voteManager;
+    private final VoteQueue voteQueue = new VoteQueue();
+    private final VoteDrainTask drainTask;
+    private final List<VoteRecord> replayed = new ArrayList<>();
+    private final List<TraceEvent> recorded = new ArrayList<>();
+    private final Set<UUID> skipNextOutcome = new HashSet<>(); // Worlds whose vote was already running when recording began
+    private final Map<UUID, Player> players = new HashMap<>(); // Also keeps departed players, their quit handler still needs them
+    private long events = 0;
+
+    public TraceReplayer(File configFile) throws IOException {
+        this.server = new SimulatedServer(configFile, new HashMap<>());
+        this.voteManager = new VoteManager(server, new Broadcaster(server));
+        this.voteManager.addOutcomeListener(replayed::add);
+        this.drainTask = new VoteDrainTask(voteManager, voteQueue);
+    }
+
+    public void replay(File traceFile) throws IOException {
+        try (TraceReader reader = new TraceReader(traceFile)) {
+            TraceEvent event;
+            while ((event = reader.next()) != null) {
+                while (server.getCurrentTick() < event.getTick()) {
+                    endTick();
+                }
+                apply(event);
+                events++;
+            }
+        }
+        // Let votes still running at the end of the trace finish on their timers
+        long limit = server.getCurrentTick() + server.getSettings().getVoteDurationSeconds() * 20L + 1;
+        while (voteManager.isVoteActive() && server.getCurrentTick() < limit) {
+            endTick();
+        }
+    }
+
+    // Chat votes queued during a tick are applied by the drain, as VoteDrainTask does on the server
+    private void endTick() {
+        drainTask.run();
+        server.tick();
+    }
+
+    private void apply(TraceEvent event) {
+        switch (event.getType()) {
+            case PRESENT:
+            case JOIN: {
+                Player existing = server.getPlayer(event.getPlayerId());
+                if (existing != null) {
+                    server.moveTo(existing, world(event.getWorldId(), event.getWorldName()));
+                } else {
+                    players.put(event.getPlayerId(), server.join(event.getPlayerId(), event.getPlayerName(),
+                            world(event.getWorldId(), event.getWorldName())));
+                }
+                break;
+            }
+            case QUIT: {
+                Player player = server.getPlayer(event.getPlayerId());
+                if (player == null) break;
+                server.quit(player);
+                if (voteManager.isVoteActive(player.getWorld())) {
+                    server.runTaskLater(() -> voteManager.handlePlayerQuit(player), 1L); // Next tick, as PlayerConnectionListener does
+                }
+                break;
+            }
+            case WORLD_CHANGE: {
+                Player player = server.getPlayer(event.getPlayerId());
+                if (player == null) break;
+                World from = world(event.getWorldId(), event.getWorldName());
+                server.moveTo(player, world(event.getToWorldId(), event.getToWorldName()));
+                if (voteManager.isVoteActive(from)) {
+                    server.runTaskLater(() -> voteManager.handlePlayerChangedWorld(player, from), 1L);
+                }
+                break;
+            }
+            case CHAT_VOTE: {
+                SessionView session = voteManager.getSessionViews().get(event.getWorldId());
+                if (session != null) { // As the chat listener, only votes for a running session are queued
+                    voteQueue.submit(event.getPlayerId(), session, event.isYes());
+                }
+                break;
+            }
+            case TIME_SET:
+                server.setTime(world(event.getWorldId(), event.getWorldName()), event.getTime());
+                break;
+            case COMMAND:
+                applyCommand(event);
+                break;
+            case VOTE_START:
+                voteManager.startVote(world(event.getWorldId(), event.getWorldName()), event.isManual(), null);
+                break;
+            case VOTE_IN_PROGRESS:
+                skipNextOutcome.add(event.getWorldId());
+                break;
+            case OUTCOME:
+                if (!skipNextOutcome.remove(event.getWorldId())) {
+                    recorded.add(event);
+                }
+                break;
+        }
+    }
+
+    // Only the subcommands that change votes matter for the replay
+    private void applyCommand(TraceEvent event) {
+        String[] args = event.getText().trim().split("\\s+");
+        String subCommand = args[0].toLowerCase();
+        Player sender = event.getPlayerId() != null ? server.getPlayer(event.getPlayerId()) : null;
+        World target = null;
+        if (args.length > 1) {
+            target = findWorld(args[1]);
+        } else if (sender != null) {
+            target = sender.getWorld();
+        }
+        if (subCommand.equals("start") && target != null) {
+            voteManager.startVote(target, true, sender);
+        } else if (subCommand.equals("cancel")) {
+            VoteSession session = target != null ? voteManager.getSession(target)
+                    : voteManager.getActiveSessions().size() == 1 ? voteManager.getActiveSessions().iterator().next() : null;
+            if (session != null) {
+                Map<String, String> placeholders = new HashMap<>();
+                placeholders.put("world", session.getWorld().getName());
+                placeholders.put("player", sender != null ? sender.getName() : "CONSOLE");
+                voteManager.cancelVote(session, "vote_cancel_manual", placeholders, false);
+            }
+        }
+    }
+
+    private World findWorld(String name) {
+        for (Player player : players.values()) {
+            if (player.getWorld().getName().equals(name)) return player.getWorld();
+        }
+        return null;
+    }
+
+    private World world(UUID id, String name) {
+        World world = server.getWorld(id);
+        return world != null ? world : server.createWorld(id, name);
+    }
+
+    // Replayed outcomes against recorded ones, in order per world
+    private List<String> compare() {
+        Map<UUID, List<VoteRecord>> byWorld = new HashMap<>();
+        for (VoteRecord record : replayed) {
+            byWorld.computeIfAbsent(record.getWorldId(), id -> new ArrayList<>()).add(record);
+        }
+        Map<UUID, Integer> position = new HashMap<>();
+        List<String> mismatches = new ArrayList<>();
+        for (TraceEvent expected : recorded) {
+            int index = position.merge(expected.getWorldId(), 1, Integer::sum) - 1;
+            List<VoteRecord> actual = byWorld.getOrDefault(expected.getWorldId(), new ArrayList<>());
+            String label = expected.getWorldName() + " vote #" + (index + 1);
+            if (index >= actual.size()) {
+                mismatches.add(label + ": recorded " + describe(expected) + ", not reproduced");
+                continue;
+            }
+            VoteRecord record = actual.get(index);
+            if (record.getOutcome() != expected.getOutcome() || record.getYesVotes() != expected.getYesVotes()
+                    || record.getNoVotes() != expected.getNoVotes() || record.getEligibleVoters() != expected.getEligibleVoters()) {
+                mismatches.add(label + ": recorded " + describe(expected) + ", replayed " + record.getOutcome() + " "
+                        + record.getYesVotes() + "/" + record.getNoVotes() + " of " + record.getEligibleVoters());
+            }
+        }
+        for (Map.Entry<UUID, List<VoteRecord>> entry : byWorld.entrySet()) {
+            int expectedCount = position.getOrDefault(entry.getKey(), 0);
+            for (int i = expectedCount; i < entry.getValue().size(); i++) {
+                VoteRecord record = entry.getValue().get(i);
+                mismatches.add(record.getWorldName() + " vote #" + (i + 1) + ": replayed " + record.getOutcome() + ", not in the trace");
+            }
+        }
+        return mismatches;
+    }
+
+    private static String describe(TraceEvent outcome) {
+        return outcome.getOutcome() + " " + outcome.getYesVotes() + "/" + outcome.getNoVotes() + " of " + outcome.getEligibleVoters();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReplayer <trace.nvt> [config.yml]");
+            System.exit(2);
+        }
+        File traceFile = new File(args[0]);
+        TraceReplayer replayer = new TraceReplayer(args.length > 1 ? new File(args[1]) : null);
+
+        long startNanos = System.nanoTime();
+        replayer.replay(traceFile);
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.println("Replayed " + traceFile.getName() + ": " + replayer.events + " events over "
+                + replayer.server.getCurrentTick() + " ticks in " + String.format("%.3f", seconds) + "s ("
+                + String.format("%.0f", replayer.events / Math.max(seconds, 1e-9)) + " events/s, "
+                + String.format("%.0f", replayer.server.getCurrentTick() / Math.max(seconds, 1e-9)) + " ticks/s)");
+        System.out.println(replayer.recorded.size() + " recorded outcomes, " + replayer.replayed.size() + " replayed");
+        List<String> mismatches = replayer.compare();
+        if (mismatches.isEmpty()) {
+            System.out.println("All recorded outcomes reproduced.");
+        } else {
+            System.out.println(mismatches.size() + " mismatch(es):");
+            mismatches.forEach(mismatch -> System.out.println("  " + mismatch));
+            System.exit(1);
+        }
+    }
+}
@@ -1,63 +1,232 @@
 package night.votes;
 
+import night.votes.analytics.VoteAnalytics;
+import night.votes.commands.AsyncTabCompleter;
 import night.votes.commands.NightVoteCommands;
+import night.votes.config.ConfigReloader;
+import night.votes.config.PluginSettings;
+import night.votes.history.VoteJournal;
+import night.votes.history.VoteRecord;
 import night.votes.listeners.PlayerChatListener;
 import night.votes.listeners.PlayerConnectionListener;
+import night.votes.listeners.PresenceListener;
+import night.votes.listeners.WorldTimeListener;
+import night.votes.managers.Broadcaster;
+import night.votes.managers.MessageManager;
 import night.votes.managers.VoteManager;
-import night.votes.tasks.NightCheckTask;
-import night.votes.utils.Utils;
+import night.votes.managers.VoteQueue;
+import night.votes.managers.VoteSession;
+import night.votes.managers.VoteSnapshotStore;
+import night.votes.metrics.PluginMetrics;
+import night.votes.metrics.PrometheusExporter;
+import night.votes.network.LoopbackTransport;
+import night.votes.network.NetworkTransport;
+import night.votes.network.NetworkVoteSync;
+import night.votes.network.SocketTransport;
+import night.votes.server.BukkitPlatform;
+import night.votes.server.FoliaPlatform;
+import night.votes.server.PluginContext;
+import night.votes.server.PresenceIndex;
+import night.votes.server.WorldNameIndex;
+import night.votes.server.ScheduledTask;
+import night.votes.server.ServerPlatform;
+import night.votes.trace.TraceRecorder;
+import night.votes.tasks.JoinNoticeTask;
+import night.votes.tasks.NetworkSyncTask;
+import night.votes.tasks.NightScheduler;
+import night.votes.tasks.ProgressDisplayTask;
+import night.votes.tasks.VoteDrainTask;
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-public class NightVote extends JavaPlugin {
+public class NightVote extends JavaPlugin implements PluginContext {
 
     private static NightVote instance;
     private VoteManager voteManager;
-    private NightCheckTask nightCheckTaskInstance;
+    private MessageManager messageManager;
+    private volatile PluginSettings settings;
+    private NightScheduler nightScheduler;
+    private ScheduledTask voteDrainTask;
+    private JoinNoticeTask joinNoticeTask;
+    private ScheduledTask joinNoticeHandle;
+    private ProgressDisplayTask progressDisplayTask;
+    private ScheduledTask progressDisplayHandle;
+    private VoteJournal voteJournal;
+    private VoteSnapshotStore voteSnapshotStore;
+    private VoteAnalytics voteAnalytics;
+    private ScheduledTask analyticsFlushTask;
+    private final PluginMetrics metrics = new PluginMetrics();
+    private final PresenceIndex presence = new PresenceIndex();
+    private final WorldNameIndex worldNames = new WorldNameIndex(); // Tab completion
+    // Global region and entity schedulers on Folia, the Bukkit scheduler everywhere else
+    private final ServerPlatform platform = FoliaPlatform.isFolia() ? new FoliaPlatform(this, presence) : new BukkitPlatform(this, presence);
+    private PrometheusExporter metricsExporter;
+    private volatile TraceRecorder traceRecorder; // Read by the async chat listener
+    private ScheduledTask traceTickTask;
+    private Consumer<VoteRecord> traceOutcomeListener;
+    private NetworkVoteSync networkSync;
+    private ScheduledTask networkSyncTask;
+    private ConfigReloader configReloader;
 
     @Override
     public void onEnable() {
         instance = this;
         saveDefaultConfig(); // Creates config.yml if it doesn't exist
+        this.settings = loadSettingsOrDefaults();
 
-        this.voteManager = new VoteManager(this);
+        this.messageManager = new MessageManager(this);
+        this.messageManager.load(); // Compile message templates once, not per send
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            messageManager.preload(player.getLocale()); // Players still online after /reload
+        }
+
+        Broadcaster broadcaster = new Broadcaster(this);
+        this.voteManager = new VoteManager(this, broadcaster);
+        this.voteManager.addOutcomeListener(metrics::recordOutcome);
+        metrics.gauge("active_votes", "Votes currently running", () -> voteManager.getActiveSessions().size());
+        metrics.counter("broadcast_messages", "Chat messages sent by vote broadcasts", broadcaster::getMessagesSent);
+        metrics.counter("broadcast_bytes", "UTF-8 bytes sent by vote broadcasts", broadcaster::getBytesSent);
+        if (settings.isMetricsExporterEnabled()) {
+            this.metricsExporter = new PrometheusExporter(metrics, settings.getMetricsExporterPort(), getLogger());
+            if (!metricsExporter.start()) {
+                this.metricsExporter = null;
+            }
+        }
 
-        // Register listeners
-        getServer().getPluginManager().registerEvents(new PlayerChatListener(this, this.voteManager), this);
-        getServer().getPluginManager().registerEvents(new PlayerConnectionListener(this, this.voteManager), this);
+        // Append-only vote history, written on its own thread
+        if (settings.isHistoryEnabled()) {
+            this.voteJournal = new VoteJournal(new File(getDataFolder(), "history"),
+                    settings.getHistoryMaxFileBytes(), settings.getHistoryMaxFiles(), getLogger());
+            this.voteJournal.start();
+            this.voteManager.addOutcomeListener(voteJournal::append);
+        }
+
+        // Hourly rollups for /nv analytics, updated with every outcome and saved now and then
+        if (settings.isAnalyticsEnabled()) {
+            this.voteAnalytics = new VoteAnalytics(new File(getDataFolder(), "analytics.dat"),
+                    settings.getAnalyticsRetentionHours(), getLogger());
+            this.voteAnalytics.load();
+            this.voteManager.addOutcomeListener(voteAnalytics::record);
+            long flushTicks = settings.getAnalyticsFlushIntervalTicks();
+            this.analyticsFlushTask = platform.runTaskTimer(voteAnalytics::flush, flushTicks, flushTicks);
+        }
+
+        // Register listeners, presence first so the index is current when the others run
+        presence.seed(Bukkit.getOnlinePlayers());
+        worldNames.seed(Bukkit.getWorlds());
+        getServer().getPluginManager().registerEvents(new PresenceListener(presence, worldNames), this);
+        VoteQueue voteQueue = new VoteQueue();
+        getServer().getPluginManager().registerEvents(new PlayerChatListener(this, this.voteManager, voteQueue), this);
+        this.joinNoticeTask = new JoinNoticeTask(this, this.voteManager);
+        getServer().getPluginManager().registerEvents(new PlayerConnectionListener(this, this.voteManager, joinNoticeTask), this);
 
         // Register commands
-        NightVoteCommands commandHandler = new NightVoteCommands(this, this.voteManager);
+        NightVoteCommands commandHandler = new NightVoteCommands(this, this.voteManager, worldNames);
         getCommand("nightvote").setExecutor(commandHandler);
         getCommand("nightvote").setTabCompleter(commandHandler);
+        AsyncTabCompleter.register(this, getCommand("nightvote"), commandHandler); // Paper answers off the main thread
+
 
+        // Apply queued chat votes once per tick
+        this.voteDrainTask = platform.runTaskTimer(new VoteDrainTask(this.voteManager, voteQueue), 1L, 1L);
 
-        // Schedule NightCheckTask
-        this.nightCheckTaskInstance = new NightCheckTask(this, this.voteManager);
-        this.nightCheckTaskInstance.runTaskTimer(this, 0L, 100L); // Checks every 5 seconds
+        // "Vote in progress" notices for joining players, coalesced and sent in bounded batches
+        this.joinNoticeHandle = platform.runTaskTimer(this.joinNoticeTask, 1L, 1L);
+
+        // Live boss bar / action bar progress, only sends when the numbers change
+        this.progressDisplayTask = new ProgressDisplayTask(this, this.voteManager);
+        this.progressDisplayHandle = platform.runTaskTimer(this.progressDisplayTask, 1L, 1L);
+
+        // Network votes across shards, before anything can start a vote
+        if (settings.isNetworkEnabled()) {
+            startNetwork();
+        }
+
+        // Pick up votes and once-per-night flags saved by the previous disable
+        this.voteSnapshotStore = new VoteSnapshotStore(new File(getDataFolder(), "vote-state.dat"), platform, getLogger());
+        this.voteSnapshotStore.restore(this.voteManager, settings.isResumeVotes(), settings.getMaxSnapshotAgeMillis());
+
+        // Arm one night check per auto-vote world, timed for its night_start_tick
+        this.nightScheduler = new NightScheduler(this, this.voteManager);
+        getServer().getPluginManager().registerEvents(new WorldTimeListener(this, this.nightScheduler), this);
+        this.nightScheduler.armAll();
+
+        // Edits to config.yml and message bundles are parsed off the main thread and applied on the next tick
+        this.configReloader = new ConfigReloader(this);
+        this.configReloader.setWatching(settings.isWatchFiles());
 
         getLogger().info("NightVote has been enabled!");
     }
 
     @Override
     public void onDisable() {
-        if (voteManager != null && voteManager.isVoteActive()) {
-            // Use a specific message key for plugin disable
-            String worldName = voteManager.getWorldForVote() != null ? voteManager.getWorldForVote().getName() : "an unknown world";
-             Map<String, String> placeholders = new HashMap<>();
-             placeholders.put("world", worldName);
-            voteManager.cancelVote(getRawMessage("vote_cancelled_plugin_disabled", placeholders), false); // false for not resetting attempt cycle
+        if (configReloader != null) {
+            configReloader.close();
+            configReloader = null;
+        }
+        stopTrace();
+        if (voteManager != null) {
+            if (voteSnapshotStore != null && settings.isResumeVotes()) {
+                // Saved and paused rather than cancelled, the next enable resumes them
+                voteSnapshotStore.save(voteManager);
+                voteManager.suspendAllVotes();
+            } else {
+                if (voteManager.isVoteActive()) {
+                    // Use a specific message key for plugin disable, one cancellation per world session
+                    voteManager.cancelAllVotes("vote_cancelled_plugin_disabled", false); // false for not resetting attempt cycle
+                }
+                if (voteSnapshotStore != null) {
+                    voteSnapshotStore.save(voteManager); // No votes left to save, only the once-per-night flags
+                }
+            }
+        }
+        if (voteDrainTask != null) {
+            voteDrainTask.cancel();
+        }
+        if (joinNoticeTask != null) {
+            joinNoticeHandle.cancel();
+            joinNoticeTask.clear();
+        }
+        if (networkSyncTask != null) {
+            networkSyncTask.cancel();
+            networkSyncTask = null;
+        }
+        if (networkSync != null) {
+            networkSync.close();
+            networkSync = null;
         }
-        if (nightCheckTaskInstance != null) {
-            nightCheckTaskInstance.cancel();
+        if (progressDisplayTask != null) {
+            progressDisplayHandle.cancel();
+            progressDisplayTask.clear();
+        }
+        if (nightScheduler != null) {
+            nightScheduler.disarmAll();
+        }
+        if (voteJournal != null) {
+            voteJournal.close(); // After cancelling votes, so their outcome is still written
+        }
+        if (voteAnalytics != null) {
+            analyticsFlushTask.cancel();
+            voteAnalytics.close(); // Also after cancelling votes
+        }
+        if (metricsExporter != null) {
+            metricsExporter.close();
+            metricsExporter = null;
+        }
+        if (messageManager != null) {
+            messageManager.close();
         }
         getLogger().info("NightVote has been disabled!");
         instance = null;
@@ -71,96 +240,212 @@ public class NightVote extends JavaPlugin {
         return voteManager;
     }
 
-    public void reloadPlugin() {
-        reloadConfig();
-        // Potentially re-initialize parts that depend heavily on config, if necessary
-        // For now, VoteManager and NightCheckTask read config on-the-fly or on startup.
-        // NightCheckTask might need its world list updated if it caches it.
-        // Let's ensure NightCheckTask re-reads enabled worlds.
-        if (this.nightCheckTaskInstance != null) {
-            this.nightCheckTaskInstance.cancel();
+    public VoteJournal getVoteJournal() {
+        return voteJournal; // Null when history is disabled
+    }
+
+    public VoteAnalytics getVoteAnalytics() {
+        return voteAnalytics; // Null when analytics are disabled
+    }
+
+    @Override
+    public ServerPlatform getPlatform() {
+        return platform;
+    }
+
+    @Override
+    public PluginMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public TraceRecorder getTraceRecorder() {
+        TraceRecorder recorder = traceRecorder;
+        return recorder != null && recorder.isRecording() ? recorder : null; // A full or failed trace counts as stopped
+    }
+
+    // Starts recording vote traffic to traces/trace-<date>.nvt, with the current players and votes as the starting state
+    public TraceRecorder startTrace() throws IOException {
+        if (traceRecorder != null) {
+            if (traceRecorder.isRecording()) {
+                return traceRecorder;
+            }
+            stopTrace(); // Stopped on its own and not detached yet
+        }
+        String name = "trace-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".nvt";
+        TraceRecorder recorder = new TraceRecorder(new File(new File(getDataFolder(), "traces"), name),
+                settings.getTraceMaxFileBytes(), getLogger());
+        recorder.start();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            recorder.recordPresent(player);
+        }
+        for (VoteSession session : voteManager.getActiveSessions()) {
+            recorder.recordVoteInProgress(session.getWorld());
         }
-        this.nightCheckTaskInstance = new NightCheckTask(this, this.voteManager);
-        this.nightCheckTaskInstance.runTaskTimer(this, 0L, 100L);
+        this.traceOutcomeListener = recorder::recordOutcome;
+        voteManager.addOutcomeListener(traceOutcomeListener);
+        this.traceTickTask = platform.runTaskTimer(() -> {
+            if (recorder.isRecording()) {
+                recorder.tick();
+            } else if (traceRecorder == recorder) {
+                stopTrace(); // The writer hit the size limit or an I/O error, detach it from the plugin
+            }
+        }, 1L, 1L);
+        this.traceRecorder = recorder;
+        getLogger().info("Recording vote traffic to " + recorder.getFile().getPath());
+        return recorder;
+    }
+
+    // Returns the stopped recorder, or null if none was running
+    public TraceRecorder stopTrace() {
+        TraceRecorder recorder = traceRecorder;
+        if (recorder == null) {
+            return null;
+        }
+        this.traceRecorder = null;
+        traceTickTask.cancel();
+        traceTickTask = null;
+        voteManager.removeOutcomeListener(traceOutcomeListener);
+        traceOutcomeListener = null;
+        recorder.close();
+        getLogger().info("Stopped recording, " + recorder.getEventsWritten() + " events in " + recorder.getFile().getName());
+        return recorder;
+    }
 
-        // Reset vote attempt cycle tracking in VoteManager
-        voteManager.resetAllVoteAttemptedCycles();
-        getLogger().info("NightVote configuration reloaded and tasks reset.");
+    private void startNetwork() {
+        NetworkTransport transport = settings.getNetworkTransport().equals("loopback")
+                ? new LoopbackTransport(settings.isNetworkCoordinator())
+                : new SocketTransport(settings.getNetworkNodeId(), settings.getNetworkHost(), settings.getNetworkPort(),
+                        settings.isNetworkCoordinator(), settings.getNetworkSecret(), getLogger());
+        NetworkVoteSync sync = new NetworkVoteSync(this, voteManager, transport);
+        try {
+            sync.start();
+        } catch (IOException e) {
+            getLogger().severe("Could not start network votes, votes stay local to this server: " + e.getMessage());
+            transport.close();
+            return;
+        }
+        this.networkSync = sync;
+        voteManager.setNetworkSync(sync);
+        metrics.counter("network_messages_sent", "Messages sent to the vote coordinator", sync::getMessagesSent);
+        metrics.counter("network_messages_received", "Messages received from the vote network", sync::getMessagesReceived);
+        this.networkSyncTask = platform.runTaskTimer(new NetworkSyncTask(sync), 1L, 1L);
+        getLogger().info("Network votes enabled as " + settings.getNetworkNodeId() + (sync.isCoordinator() ? " (coordinator)" : "")
+                + " for " + settings.getNetworkWorldNames() + ".");
+    }
+
+    public PrometheusExporter getMetricsExporter() {
+        return metricsExporter; // Null unless metrics.exporter.enabled
+    }
+
+    @Override
+    public MessageManager getMessageManager() {
+        return messageManager;
+    }
+
+    // Parses off the main thread; done runs on the main thread with false if config.yml was rejected
+    public void reloadPlugin(Consumer<Boolean> done) {
+        configReloader.reload(done);
+    }
+
+    // Main thread, called by the ConfigReloader with a change it already parsed and validated.
+    // Running votes, once-per-night flags and worlds whose settings did not change are left alone.
+    public void applyConfigChange(ConfigReloader.Change change) {
+        if (change.getSettings() != null) {
+            PluginSettings previous = this.settings;
+            this.settings = change.getSettings().withWorldsResolved();
+            if (change.isForced()) {
+                // Re-arm every night check, an explicit reload also covers worlds loaded since
+                this.nightScheduler.disarmAll();
+                this.nightScheduler.armAll();
+            } else {
+                this.nightScheduler.rearmChanged(previous, settings);
+            }
+            configReloader.setWatching(settings.isWatchFiles());
+        }
+        if (change.getMessages() != null) {
+            messageManager.apply(change.getMessages());
+        }
+        if (change.isForced()) {
+            presence.invalidatePermissions(); // A reload is the usual moment after editing permissions
+            getLogger().info("NightVote configuration reloaded.");
+        } else {
+            getLogger().info("Applied config changes: " + (change.getChangedKeys().isEmpty() ? "message bundles" : change.getChangedKeys()));
+        }
+        if (!change.getRestartKeys().isEmpty()) {
+            getLogger().warning("These changes take effect after a restart: " + change.getRestartKeys());
+        }
+    }
+
+    // Re-resolves enabled world names, e.g. when a listed world is loaded after startup
+    public void refreshEnabledWorlds() {
+        this.settings = settings.withWorldsResolved();
+    }
+
+    // A bad value only costs its own key, the rest of config.yml still applies
+    private PluginSettings loadSettingsOrDefaults() {
+        return PluginSettings.fromConfig(getConfig(), problem -> getLogger().warning("Invalid config.yml: " + problem));
     }
 
     // --- Configuration Getters ---
+    // All backed by the immutable settings snapshot, a plain field read on any thread.
+
+    @Override
+    public PluginSettings getSettings() {
+        return settings;
+    }
 
     public int getVoteDurationSeconds() {
-        return getConfig().getInt("vote.duration_seconds", 30);
+        return settings.getVoteDurationSeconds();
     }
 
     public long getNightStartTick() {
-        return getConfig().getLong("vote.night_start_tick", 12550L);
+        return settings.getNightStartTick();
     }
 
     public long getDayStartTick() {
-        return getConfig().getLong("vote.day_start_tick", 1000L);
+        return settings.getDayStartTick();
     }
 
     public int getMinPlayersToStartAutoVote() {
-        return getConfig().getInt("vote.min_players_to_start_auto", 1);
+        return settings.getMinPlayersToStartAutoVote();
     }
     
     public int getMinPlayersToStartManualVote() {
-        return getConfig().getInt("vote.min_players_to_start_manual", 1);
+        return settings.getMinPlayersToStartManualVote();
     }
 
     public double getRequiredYesPercentage() {
-        return getConfig().getDouble("vote.required_yes_percentage", 0.51);
+        return settings.getRequiredYesPercentage();
     }
 
     public boolean attemptOncePerNightCycle() {
-        return getConfig().getBoolean("vote.attempt_once_per_night_cycle_per_world", true);
+        return settings.attemptOncePerNightCycle();
     }
 
     public List<String> getEnabledWorldsForAutoVote() {
-        return getConfig().getStringList("enabled_worlds_for_auto_vote");
+        return settings.getEnabledWorldNames();
     }
 
     public List<World> getOnlineEnabledWorlds() {
-        return getEnabledWorldsForAutoVote().stream()
+        return settings.getEnabledWorldIds().stream()
                 .map(Bukkit::getWorld)
-                .filter(world -> world != null && world.getEnvironment() == World.Environment.NORMAL)
+                .filter(world -> world != null)
                 .collect(Collectors.toList());
     }
 
     public String getMessage(String key, Map<String, String> placeholders) {
-        String prefix = getConfig().getString("messages.prefix", "&6[NightVote] ");
-        String message = getConfig().getString("messages." + key);
-
-        if (message == null) {
-            Bukkit.getLogger().warning("[NightVote] Missing message for key: messages." + key);
-            return ChatColor.RED + "Missing message: messages." + key;
-        }
-
-        message = prefix + message;
-
-        if (placeholders != null) {
-            for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-                message = message.replace("%" + entry.getKey() + "%", entry.getValue() != null ? entry.getValue() : "null");
-            }
-        }
-        return Utils.colorize(message);
+        return messageManager.getMessage(key, placeholders);
     }
     
-    public String getRawMessage(String key, Map<String, String> placeholders) {
-        String message = getConfig().getString("messages." + key);
+    // Localized for the recipient when a bundle exists for their client locale
+    @Override
+    public String getMessage(CommandSender recipient, String key, Map<String, String> placeholders) {
+        return messageManager.getMessage(recipient, key, placeholders);
+    }
 
-        if (message == null) {
-            Bukkit.getLogger().warning("[NightVote] Missing message for key: messages." + key);
-            return ChatColor.RED + "Missing message: messages." + key;
-        }
-        
-        if (placeholders != null) {
-            for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-                message = message.replace("%" + entry.getKey() + "%", entry.getValue() != null ? entry.getValue() : "null");
-            }
-        }
-        return Utils.colorize(message);
+    @Override
+    public String getRawMessage(String key, Map<String, String> placeholders) {
+        return messageManager.getRawMessage(key, placeholders);
     }
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package night.votes.analytics;
+
+import night.votes.history.VoteRecord;
+import night.votes.server.WorldNameIndex;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-world and server-wide VoteRollups, fed from vote outcomes as they happen, so /nv analytics answers from
+ * running totals instead of reading the journal. Saved to a small binary file from time to time and on disable;
+ * the bytes are built on the main thread and written on a background one.
+ */
+public class VoteAnalytics {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final int retentionHours;
+    private final Logger logger;
+    private final VoteRollup allWorlds;
+    // Lower-case world name -> rollup; sorted and concurrent so tab completion can read the names off the main thread
+    private final NavigableMap<String, VoteRollup> worlds = new ConcurrentSkipListMap<>();
+    private final ExecutorService writer;
+    private boolean dirty = false;
+
+    public VoteAnalytics(File file, int retentionHours, Logger logger) {
+        this.file = file;
+        this.retentionHours = retentionHours;
+        this.logger = logger;
+        this.allWorlds = new VoteRollup("all worlds", retentionHours);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NightVote-AnalyticsWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Outcome listener, main thread
+    public void record(VoteRecord record) {
+        allWorlds.record(record);
+        worlds.computeIfAbsent(record.getWorldName().toLowerCase(Locale.ROOT),
+                key -> new VoteRollup(record.getWorldName(), retentionHours)).record(record);
+        dirty = true;
+    }
+
+    public VoteRollup getAllWorlds() {
+        return allWorlds;
+    }
+
+    // Null if no vote in this world is on record
+    public VoteRollup getWorld(String worldName) {
+        return worlds.get(worldName.toLowerCase(Locale.ROOT));
+    }
+
+    public Collection<VoteRollup> getWorlds() {
+        return Collections.unmodifiableCollection(worlds.values());
+    }
+
+    // Names of the worlds with a rollup starting with prefix, in order; safe on any thread
+    public void completeWorlds(String prefix, List<String> out) {
+        for (VoteRollup rollup : WorldNameIndex.startingWith(worlds, prefix).values()) {
+            out.add(rollup.getName());
+        }
+    }
+
+    // Periodic save; skipped when nothing changed since the last one
+    public void flush() {
+        if (!dirty) return;
+        dirty = false;
+        byte[] bytes;
+        try {
+            bytes = serialize();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not save vote analytics", e);
+            return;
+        }
+        writer.execute(() -> write(bytes));
+    }
+
+    // Saves what is left and waits for the writer
+    public void close() {
+        flush();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void load() {
+        if (!file.isFile()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                logger.warning("Ignoring vote analytics with unknown format version " + version);
+                return;
+            }
+            allWorlds.readFrom(in);
+            int worldCount = in.readInt();
+            for (int i = 0; i < worldCount; i++) {
+                String worldName = in.readUTF();
+                VoteRollup rollup = new VoteRollup(worldName, retentionHours);
+                rollup.readFrom(in);
+                worlds.put(worldName.toLowerCase(Locale.ROOT), rollup);
+            }
+            // Drop whatever aged out while the server was down
+            long now = System.currentTimeMillis();
+            allWorlds.getWindow(now);
+            for (VoteRollup rollup : worlds.values()) {
+                rollup.getWindow(now);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read vote analytics, starting empty", e);
+        }
+    }
+
+    private byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        allWorlds.writeTo(out);
+        out.writeInt(worlds.size());
+        for (VoteRollup rollup : worlds.values()) {
+            out.writeUTF(rollup.getName());
+            rollup.writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // Writer thread: temp file moved into place, a crash mid-write keeps the previous save
+    private void write(byte[] bytes) {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            Files.write(temp.toPath(), bytes);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not save vote analytics", e);
+            temp.delete();
+        }
+    }
+}
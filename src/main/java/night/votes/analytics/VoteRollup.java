@@ -0,0 +1,301 @@
+package night.votes.analytics;
+
+import night.votes.history.VoteOutcome;
+import night.votes.history.VoteRecord;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hourly vote statistics of one world (or of all worlds) in a fixed ring of hour buckets. Running totals of the
+ * whole ring and of the last 24 hours are kept next to it: adding a vote adds to both, and moving to a new hour
+ * subtracts the buckets that fall out. Reading either total never walks the ring. Main thread only.
+ */
+public final class VoteRollup {
+
+    static final long MILLIS_PER_HOUR = 3_600_000L;
+    static final int DAY_HOURS = 24;
+
+    private final String name;
+    private final Bucket[] ring;
+    private final Bucket window = new Bucket(); // Sum of every bucket in the ring
+    private final Bucket lastDay = new Bucket(); // Sum of the buckets of the newest 24 hours
+    private long currentHour = Long.MIN_VALUE; // Newest hour the ring has been moved to
+
+    VoteRollup(String name, int retentionHours) {
+        this.name = name;
+        this.ring = new Bucket[retentionHours];
+        for (int i = 0; i < retentionHours; i++) {
+            ring[i] = new Bucket();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRetentionHours() {
+        return ring.length;
+    }
+
+    void record(VoteRecord record) {
+        long hour = Math.floorDiv(record.getTimestamp(), MILLIS_PER_HOUR);
+        advanceTo(hour);
+        Bucket bucket = claim(hour);
+        if (bucket == null) return; // Older than the ring, e.g. a clock step backwards
+        bucket.add(record);
+        window.add(record);
+        if (hour > currentHour - DAY_HOURS) {
+            lastDay.add(record);
+        }
+    }
+
+    // Moves the ring forward to hour, evicting what falls out of either window. At most one pass over the ring.
+    void advanceTo(long hour) {
+        if (hour <= currentHour) return;
+        if (currentHour == Long.MIN_VALUE || hour - currentHour >= ring.length) {
+            for (Bucket bucket : ring) {
+                bucket.clear(Bucket.NO_HOUR);
+            }
+            window.clear(Bucket.NO_HOUR);
+            lastDay.clear(Bucket.NO_HOUR);
+            currentHour = hour;
+            return;
+        }
+        for (long next = currentHour + 1; next <= hour; next++) {
+            Bucket leavingDay = bucketAt(next - DAY_HOURS);
+            if (leavingDay != null) {
+                lastDay.subtract(leavingDay);
+            }
+            Bucket slot = ring[index(next)];
+            if (slot.hour != Bucket.NO_HOUR) {
+                window.subtract(slot);
+            }
+            slot.clear(next);
+        }
+        currentHour = hour;
+    }
+
+    public Bucket getWindow(long nowMillis) {
+        advanceTo(Math.floorDiv(nowMillis, MILLIS_PER_HOUR));
+        return window;
+    }
+
+    public Bucket getLastDay(long nowMillis) {
+        advanceTo(Math.floorDiv(nowMillis, MILLIS_PER_HOUR));
+        return lastDay;
+    }
+
+    private Bucket claim(long hour) {
+        if (hour <= currentHour - ring.length) return null;
+        Bucket slot = ring[index(hour)];
+        if (slot.hour != hour) {
+            if (slot.hour != Bucket.NO_HOUR) {
+                window.subtract(slot); // Leftover of an hour that has left the ring
+            }
+            slot.clear(hour);
+        }
+        return slot;
+    }
+
+    private Bucket bucketAt(long hour) {
+        Bucket slot = ring[index(hour)];
+        return slot.hour == hour ? slot : null;
+    }
+
+    private int index(long hour) {
+        return (int) Math.floorMod(hour, (long) ring.length);
+    }
+
+    // Non-empty buckets, oldest first
+    void writeTo(DataOutput out) throws IOException {
+        List<Bucket> buckets = new ArrayList<>();
+        for (Bucket bucket : ring) {
+            if (bucket.hour != Bucket.NO_HOUR && bucket.votes > 0) {
+                buckets.add(bucket);
+            }
+        }
+        buckets.sort(Comparator.comparingLong(bucket -> bucket.hour));
+        out.writeInt(buckets.size());
+        for (Bucket bucket : buckets) {
+            bucket.writeTo(out);
+        }
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Bucket saved = Bucket.readFrom(in);
+            advanceTo(saved.hour);
+            Bucket slot = claim(saved.hour);
+            if (slot == null) continue;
+            slot.add(saved);
+            window.add(saved);
+            if (saved.hour > currentHour - DAY_HOURS) {
+                lastDay.add(saved);
+            }
+        }
+    }
+
+    /**
+     * Counters of one hour, or the sum of several. Durations are only counted for decided votes, so
+     * time-to-decision is not skewed by cancellations.
+     */
+    public static final class Bucket {
+
+        static final long NO_HOUR = Long.MIN_VALUE;
+        // Cancel reasons by message key; anything else counts as other
+        static final List<String> CANCEL_KEYS = List.of("all_eligible_left", "vote_cancel_manual", "vote_cancelled_plugin_disabled");
+
+        private long hour = NO_HOUR;
+        private int votes;
+        private int passed;
+        private int failed;
+        private int manual;
+        private long yesVotes;
+        private long noVotes;
+        private long eligibleVoters;
+        private long decisionMillis;
+        private long yesSharePermille; // Sum over decided votes of yes / eligible, in thousandths
+        private final int[] cancelled = new int[CANCEL_KEYS.size() + 1];
+
+        private void add(VoteRecord record) {
+            votes++;
+            if (record.isManual()) manual++;
+            yesVotes += record.getYesVotes();
+            noVotes += record.getNoVotes();
+            eligibleVoters += record.getEligibleVoters();
+            if (record.getOutcome() == VoteOutcome.CANCELLED) {
+                int index = CANCEL_KEYS.indexOf(record.getReasonKey());
+                cancelled[index >= 0 ? index : CANCEL_KEYS.size()]++;
+                return;
+            }
+            if (record.getOutcome() == VoteOutcome.PASSED) passed++;
+            else failed++;
+            decisionMillis += record.getDurationMillis();
+            if (record.getEligibleVoters() > 0) {
+                yesSharePermille += record.getYesVotes() * 1000L / record.getEligibleVoters();
+            }
+        }
+
+        private void add(Bucket other) {
+            merge(other, 1);
+        }
+
+        private void subtract(Bucket other) {
+            merge(other, -1);
+        }
+
+        private void merge(Bucket other, int sign) {
+            votes += sign * other.votes;
+            passed += sign * other.passed;
+            failed += sign * other.failed;
+            manual += sign * other.manual;
+            yesVotes += sign * other.yesVotes;
+            noVotes += sign * other.noVotes;
+            eligibleVoters += sign * other.eligibleVoters;
+            decisionMillis += sign * other.decisionMillis;
+            yesSharePermille += sign * other.yesSharePermille;
+            for (int i = 0; i < cancelled.length; i++) {
+                cancelled[i] += sign * other.cancelled[i];
+            }
+        }
+
+        private void clear(long hour) {
+            this.hour = hour;
+            votes = passed = failed = manual = 0;
+            yesVotes = noVotes = eligibleVoters = decisionMillis = yesSharePermille = 0L;
+            Arrays.fill(cancelled, 0);
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            out.writeLong(hour);
+            out.writeInt(votes);
+            out.writeInt(passed);
+            out.writeInt(failed);
+            out.writeInt(manual);
+            out.writeLong(yesVotes);
+            out.writeLong(noVotes);
+            out.writeLong(eligibleVoters);
+            out.writeLong(decisionMillis);
+            out.writeLong(yesSharePermille);
+            out.writeByte(cancelled.length);
+            for (int count : cancelled) {
+                out.writeInt(count);
+            }
+        }
+
+        private static Bucket readFrom(DataInput in) throws IOException {
+            Bucket bucket = new Bucket();
+            bucket.hour = in.readLong();
+            bucket.votes = in.readInt();
+            bucket.passed = in.readInt();
+            bucket.failed = in.readInt();
+            bucket.manual = in.readInt();
+            bucket.yesVotes = in.readLong();
+            bucket.noVotes = in.readLong();
+            bucket.eligibleVoters = in.readLong();
+            bucket.decisionMillis = in.readLong();
+            bucket.yesSharePermille = in.readLong();
+            int reasons = in.readUnsignedByte();
+            for (int i = 0; i < reasons; i++) {
+                int count = in.readInt();
+                bucket.cancelled[Math.min(i, bucket.cancelled.length - 1)] += count; // Unknown reasons fold into other
+            }
+            return bucket;
+        }
+
+        public int getVotes() {
+            return votes;
+        }
+
+        public int getPassed() {
+            return passed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getCancelled() {
+            return votes - passed - failed;
+        }
+
+        public int getManual() {
+            return manual;
+        }
+
+        // Count of cancellations with this reason key, or of all other reasons for null
+        public int getCancelled(String reasonKey) {
+            int index = reasonKey == null ? -1 : CANCEL_KEYS.indexOf(reasonKey);
+            return cancelled[index >= 0 ? index : CANCEL_KEYS.size()];
+        }
+
+        // Passed share of decided votes, 0 to 1
+        public double getPassRate() {
+            int decided = passed + failed;
+            return decided == 0 ? 0.0 : (double) passed / decided;
+        }
+
+        // Votes cast per eligible voter, 0 to 1
+        public double getTurnout() {
+            return eligibleVoters == 0 ? 0.0 : (double) (yesVotes + noVotes) / eligibleVoters;
+        }
+
+        // Average yes votes per eligible voter of decided votes, the figure required_yes_percentage is held against
+        public double getAverageYesShare() {
+            int decided = passed + failed;
+            return decided == 0 ? 0.0 : yesSharePermille / 1000.0 / decided;
+        }
+
+        public long getAverageDecisionMillis() {
+            int decided = passed + failed;
+            return decided == 0 ? 0L : decisionMillis / decided;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package night.votes.commands;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Answers /nightvote tab completion from Paper's AsyncTabCompleteEvent, off the main thread, so a keystroke
+ * never waits for a tick. The event is not part of the Spigot API NightVote compiles against, so it is looked
+ * up and registered reflectively; on Spigot nothing is registered and Bukkit calls onTabComplete as before.
+ */
+public final class AsyncTabCompleter implements Listener, EventExecutor {
+
+    private static final String EVENT_CLASS = "com.destroystokyo.paper.event.server.AsyncTabCompleteEvent";
+
+    private final Command command;
+    private final NightVoteCommands commands;
+    private final Class<? extends Event> eventClass;
+    private final Method getBuffer;
+    private final Method getSender;
+    private final Method isCommand;
+    private final Method isHandled;
+    private final Method setCompletions;
+    private final Method setHandled;
+
+    private AsyncTabCompleter(Command command, NightVoteCommands commands, Class<? extends Event> eventClass)
+            throws ReflectiveOperationException {
+        this.command = command;
+        this.commands = commands;
+        this.eventClass = eventClass;
+        this.getBuffer = eventClass.getMethod("getBuffer");
+        this.getSender = eventClass.getMethod("getSender");
+        this.isCommand = eventClass.getMethod("isCommand");
+        this.isHandled = eventClass.getMethod("isHandled");
+        this.setCompletions = eventClass.getMethod("setCompletions", List.class);
+        this.setHandled = eventClass.getMethod("setHandled", boolean.class);
+    }
+
+    // Returns false when the server has no async tab completion, Bukkit's main-thread path still works then
+    public static boolean register(Plugin plugin, Command command, NightVoteCommands commands) {
+        Class<? extends Event> eventClass;
+        try {
+            eventClass = Class.forName(EVENT_CLASS).asSubclass(Event.class);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            return false;
+        }
+        try {
+            AsyncTabCompleter completer = new AsyncTabCompleter(command, commands, eventClass);
+            plugin.getServer().getPluginManager().registerEvent(eventClass, completer, EventPriority.NORMAL, completer, plugin, true);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            plugin.getLogger().warning("Paper's async tab completion has an unexpected shape, completing on the main thread: " + e);
+            return false;
+        }
+    }
+
+    @Override
+    public void execute(Listener listener, Event event) throws EventException {
+        if (!eventClass.isInstance(event)) return;
+        try {
+            if ((Boolean) isHandled.invoke(event) || !(Boolean) isCommand.invoke(event)) return;
+            String[] args = parseArgs((String) getBuffer.invoke(event));
+            if (args == null) return;
+            CommandSender sender = (CommandSender) getSender.invoke(event);
+            if (!command.testPermissionSilent(sender)) return; // What Bukkit checks before calling onTabComplete
+            setCompletions.invoke(event, commands.complete(sender, args));
+            setHandled.invoke(event, true);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new EventException(e);
+        }
+    }
+
+    // Arguments after our label, the last one possibly empty; null if the buffer is another command or still the label
+    private String[] parseArgs(String buffer) {
+        int start = buffer.startsWith("/") ? 1 : 0;
+        int space = buffer.indexOf(' ', start);
+        if (space < 0) return null;
+        String label = buffer.substring(start, space).toLowerCase(Locale.ROOT);
+        int namespace = label.indexOf(':');
+        if (namespace >= 0) {
+            label = label.substring(namespace + 1);
+        }
+        if (!label.equals(command.getName()) && !command.getAliases().contains(label)) return null;
+        return buffer.substring(space + 1).split(" ", -1);
+    }
+}
@@ -1,7 +1,17 @@
 package night.votes.commands;
 
 import night.votes.NightVote;
+import night.votes.analytics.VoteAnalytics;
+import night.votes.analytics.VoteRollup;
+import night.votes.history.VoteJournal;
+import night.votes.history.VoteRecord;
 import night.votes.managers.VoteManager;
+import night.votes.managers.VoteSession;
+import night.votes.metrics.LatencyHistogram;
+import night.votes.metrics.PluginMetrics;
+import night.votes.metrics.PrometheusExporter;
+import night.votes.server.WorldNameIndex;
+import night.votes.trace.TraceRecorder;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.command.Command;
@@ -10,30 +20,61 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class NightVoteCommands implements CommandExecutor, TabCompleter {
 
     private final NightVote plugin;
     private final VoteManager voteManager;
+    private final WorldNameIndex worldNames;
 
-    public NightVoteCommands(NightVote plugin, VoteManager voteManager) {
+    private static final int DEFAULT_HISTORY_ENTRIES = 10;
+    private static final int MAX_HISTORY_ENTRIES = 100;
+    // Subcommand -> permission, in the order they are offered
+    private static final Map<String, String> SUBCOMMAND_PERMISSIONS = new LinkedHashMap<>();
+    private static final List<String> TRACE_ACTIONS = List.of("start", "stop", "status");
+    static {
+        for (String subCommand : List.of("start", "cancel", "reload", "history", "stats", "analytics", "trace")) {
+            SUBCOMMAND_PERMISSIONS.put(subCommand, "nightvote." + subCommand);
+        }
+    }
+    private static final DateTimeFormatter HISTORY_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+    public NightVoteCommands(NightVote plugin, VoteManager voteManager, WorldNameIndex worldNames) {
         this.plugin = plugin;
         this.voteManager = voteManager;
+        this.worldNames = worldNames;
     }
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         if (args.length == 0) {
-            sender.sendMessage(plugin.getMessage("command_usage_main", null));
+            sender.sendMessage(plugin.getMessage(sender, "command_usage_main", null));
+            return true;
+        }
+
+        if (!plugin.getPlatform().isMainThread()) {
+            // Folia runs player commands on the player's region thread, votes are only touched on the global one
+            plugin.getPlatform().runTask(() -> onCommand(sender, command, label, args));
             return true;
         }
 
+        TraceRecorder recorder = plugin.getTraceRecorder();
+        if (recorder != null) {
+            recorder.recordCommand(sender, args); // Replayed offline, start and cancel change votes
+        }
+
         String subCommand = args[0].toLowerCase();
 
         switch (subCommand) {
@@ -41,13 +82,25 @@ public class NightVoteCommands implements CommandExecutor, TabCompleter {
                 handleStartCommand(sender, args);
                 break;
             case "cancel":
-                handleCancelCommand(sender);
+                handleCancelCommand(sender, args);
                 break;
             case "reload":
                 handleReloadCommand(sender);
                 break;
+            case "history":
+                handleHistoryCommand(sender, args);
+                break;
+            case "stats":
+                handleStatsCommand(sender);
+                break;
+            case "analytics":
+                handleAnalyticsCommand(sender, args);
+                break;
+            case "trace":
+                handleTraceCommand(sender, args);
+                break;
             default:
-                sender.sendMessage(plugin.getMessage("command_usage_main", null));
+                sender.sendMessage(plugin.getMessage(sender, "command_usage_main", null));
                 break;
         }
         return true;
@@ -55,14 +108,7 @@ public class NightVoteCommands implements CommandExecutor, TabCompleter {
 
     private void handleStartCommand(CommandSender sender, String[] args) {
         if (!sender.hasPermission("nightvote.start")) {
-            sender.sendMessage(plugin.getMessage("no_permission", null));
-            return;
-        }
-
-        if (voteManager.isVoteActive()) {
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("other_world", voteManager.getWorldForVote() != null ? voteManager.getWorldForVote().getName() : "another world");
-            sender.sendMessage(plugin.getMessage("vote_already_active_elsewhere", placeholders));
+            sender.sendMessage(plugin.getMessage(sender, "no_permission", null));
             return;
         }
 
@@ -72,7 +118,7 @@ public class NightVoteCommands implements CommandExecutor, TabCompleter {
             if (targetWorld == null) {
                 Map<String, String> placeholders = new HashMap<>();
                 placeholders.put("world", args[1]);
-                sender.sendMessage(plugin.getMessage("error_world_not_found", placeholders));
+                sender.sendMessage(plugin.getMessage(sender, "error_world_not_found", placeholders));
                 return;
             }
         } else if (sender instanceof Player) {
@@ -86,7 +132,7 @@ public class NightVoteCommands implements CommandExecutor, TabCompleter {
                 targetWorld = overworlds.get(0);
                 sender.sendMessage(plugin.getRawMessage("prefix", null) + "&7Defaulting to world: " + targetWorld.getName());
             } else {
-                 sender.sendMessage(plugin.getMessage("command_usage_start", null));
+                 sender.sendMessage(plugin.getMessage(sender, "command_usage_start", null));
                  sender.sendMessage(plugin.getRawMessage("prefix", null) + "&cNo Overworld found to start a vote in, or specify a world name.");
                  return;
             }
@@ -95,7 +141,14 @@ public class NightVoteCommands implements CommandExecutor, TabCompleter {
         if (targetWorld.getEnvironment() != World.Environment.NORMAL) {
             Map<String, String> placeholders = new HashMap<>();
             placeholders.put("world", targetWorld.getName());
-            sender.sendMessage(plugin.getMessage("error_world_not_overworld", placeholders));
+            sender.sendMessage(plugin.getMessage(sender, "error_world_not_overworld", placeholders));
+            return;
+        }
+
+        if (voteManager.isVoteActive(targetWorld)) {
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("world", targetWorld.getName());
+            sender.sendMessage(plugin.getMessage(sender, "vote_already_active_in_world", placeholders));
             return;
         }
         
@@ -105,63 +158,335 @@ public class NightVoteCommands implements CommandExecutor, TabCompleter {
             // No need to send a generic "failed to start" here unless startVote doesn't cover a case.
         } else {
             // Message is handled by startVote if successful.
-            // sender.sendMessage(plugin.getMessage("vote_started", placeholders)); // Already done by startVote
+            // sender.sendMessage(plugin.getMessage(sender, "vote_started", placeholders)); // Already done by startVote
         }
     }
 
-    private void handleCancelCommand(CommandSender sender) {
+    private void handleCancelCommand(CommandSender sender, String[] args) {
         if (!sender.hasPermission("nightvote.cancel")) {
-            sender.sendMessage(plugin.getMessage("no_permission", null));
+            sender.sendMessage(plugin.getMessage(sender, "no_permission", null));
             return;
         }
 
         if (!voteManager.isVoteActive()) {
-            sender.sendMessage(plugin.getMessage("no_active_vote", null));
+            sender.sendMessage(plugin.getMessage(sender, "no_active_vote", null));
+            return;
+        }
+
+        VoteSession session;
+        if (args.length > 1) {
+            World targetWorld = Bukkit.getWorld(args[1]);
+            if (targetWorld == null) {
+                Map<String, String> placeholders = new HashMap<>();
+                placeholders.put("world", args[1]);
+                sender.sendMessage(plugin.getMessage(sender, "error_world_not_found", placeholders));
+                return;
+            }
+            session = voteManager.getSession(targetWorld);
+        } else if (sender instanceof Player) {
+            session = voteManager.getSession(((Player) sender).getWorld());
+        } else if (voteManager.getActiveSessions().size() == 1) {
+            // Console with a single running vote, no need to name the world
+            session = voteManager.getActiveSessions().iterator().next();
+        } else {
+            sender.sendMessage(plugin.getMessage(sender, "command_usage_cancel", null));
+            return;
+        }
+
+        if (session == null) {
+            sender.sendMessage(plugin.getMessage(sender, "no_active_vote", null));
             return;
         }
 
-        String reason = (sender instanceof Player) ? "Manually cancelled by " + sender.getName() : "Manually cancelled by CONSOLE";
         Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("world", voteManager.getWorldForVote().getName());
+        placeholders.put("world", session.getWorld().getName());
         placeholders.put("player", sender.getName());
 
-        voteManager.cancelVote(plugin.getRawMessage("vote_cancel_manual", placeholders), false); // false to reset attempt cycle
+        voteManager.cancelVote(session, "vote_cancel_manual", placeholders, false); // false to reset attempt cycle
         // The cancelVote method now handles broadcasting the cancellation message.
         // sender.sendMessage(plugin.getRawMessage("prefix", null) + "&eVote has been cancelled."); // Generic confirmation to sender
     }
 
     private void handleReloadCommand(CommandSender sender) {
         if (!sender.hasPermission("nightvote.reload")) {
-            sender.sendMessage(plugin.getMessage("no_permission", null));
+            sender.sendMessage(plugin.getMessage(sender, "no_permission", null));
+            return;
+        }
+        // Parsed off the main thread, the reply follows once the new config is live
+        plugin.reloadPlugin(success -> sender.sendMessage(plugin.getMessage(sender, success ? "reload_success" : "reload_failed", null)));
+    }
+
+    private void handleHistoryCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("nightvote.history")) {
+            sender.sendMessage(plugin.getMessage(sender, "no_permission", null));
+            return;
+        }
+        VoteJournal journal = plugin.getVoteJournal();
+        if (journal == null) {
+            sender.sendMessage(plugin.getMessage(sender, "history_disabled", null));
+            return;
+        }
+
+        // /nv history [world] [n] [age], each part optional, e.g. /nv history 20 12h; age is hours (h) or days (d)
+        int index = 1;
+        World targetWorld = null;
+        if (args.length > index && !isNumber(args[index]) && parseAgeMillis(args[index]) < 0L) {
+            targetWorld = Bukkit.getWorld(args[index]);
+            if (targetWorld == null) {
+                Map<String, String> placeholders = new HashMap<>();
+                placeholders.put("world", args[index]);
+                sender.sendMessage(plugin.getMessage(sender, "error_world_not_found", placeholders));
+                return;
+            }
+            index++;
+        }
+        int count = DEFAULT_HISTORY_ENTRIES;
+        if (args.length > index && isNumber(args[index])) {
+            count = Math.max(1, Math.min(MAX_HISTORY_ENTRIES, Integer.parseInt(args[index])));
+            index++;
+        }
+        long ageMillis = 0L;
+        if (args.length > index) {
+            ageMillis = parseAgeMillis(args[index]);
+            index++;
+        }
+        if (ageMillis < 0L || args.length > index) {
+            sender.sendMessage(plugin.getMessage(sender, "command_usage_history", null));
+            return;
+        }
+
+        String scope = (targetWorld != null ? targetWorld.getName() : "all worlds") + (ageMillis > 0L ? " (last " + args[index - 1] + ")" : "");
+        long sinceMillis = ageMillis > 0L ? System.currentTimeMillis() - ageMillis : 0L; // The journal stops at the first older record
+        // Read on the journal's query thread, reply on the main thread
+        journal.query(targetWorld != null ? targetWorld.getUID() : null, sinceMillis, count).whenComplete((records, error) -> plugin.getPlatform().runTask(() -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.WARNING, "Vote history query failed", error);
+                sender.sendMessage(plugin.getMessage(sender, "history_error", null));
+                return;
+            }
+            sendHistory(sender, scope, records);
+        }));
+    }
+
+    private void sendHistory(CommandSender sender, String scope, List<VoteRecord> records) {
+        if (records.isEmpty()) {
+            sender.sendMessage(plugin.getMessage(sender, "history_empty", null));
+            return;
+        }
+        Map<String, String> header = new HashMap<>();
+        header.put("scope", scope);
+        header.put("count", String.valueOf(records.size()));
+        sender.sendMessage(plugin.getMessage(sender, "history_header", header));
+        for (VoteRecord record : records) {
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("date", HISTORY_DATE_FORMAT.format(Instant.ofEpochMilli(record.getTimestamp())));
+            placeholders.put("world", record.getWorldName());
+            placeholders.put("outcome", plugin.getRawMessage("history_outcome_" + record.getOutcome().name().toLowerCase(), null));
+            placeholders.put("yes_votes", String.valueOf(record.getYesVotes()));
+            placeholders.put("no_votes", String.valueOf(record.getNoVotes()));
+            placeholders.put("eligible_voters", String.valueOf(record.getEligibleVoters()));
+            placeholders.put("duration", String.valueOf(record.getDurationMillis() / 1000L));
+            sender.sendMessage(plugin.getRawMessage("history_entry", placeholders));
+        }
+    }
+
+    private void handleStatsCommand(CommandSender sender) {
+        if (!sender.hasPermission("nightvote.stats")) {
+            sender.sendMessage(plugin.getMessage(sender, "no_permission", null));
             return;
         }
-        plugin.reloadPlugin();
-        sender.sendMessage(plugin.getMessage("reload_success", null));
+        PluginMetrics metrics = plugin.getMetrics();
+        sender.sendMessage(plugin.getMessage(sender, "stats_header", null));
+        for (LatencyHistogram timer : metrics.getTimers().values()) {
+            LatencyHistogram.Snapshot snapshot = timer.snapshot();
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("name", timer.getName());
+            placeholders.put("count", String.valueOf(snapshot.getCount()));
+            placeholders.put("avg_us", String.valueOf(snapshot.getMeanNanos() / 1000L));
+            placeholders.put("p99_us", String.valueOf(snapshot.getQuantileNanos(0.99) / 1000L));
+            placeholders.put("max_us", String.valueOf(snapshot.getMaxNanos() / 1000L));
+            sender.sendMessage(plugin.getRawMessage("stats_timer", placeholders));
+        }
+        for (PluginMetrics.Value value : metrics.getValues()) {
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("name", value.getName());
+            placeholders.put("value", String.valueOf(value.get()));
+            sender.sendMessage(plugin.getRawMessage("stats_value", placeholders));
+        }
+        PrometheusExporter exporter = plugin.getMetricsExporter();
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("status", exporter != null ? exporter.getAddress() : "disabled");
+        sender.sendMessage(plugin.getRawMessage("stats_exporter", placeholders));
+    }
+
+    private void handleAnalyticsCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("nightvote.analytics")) {
+            sender.sendMessage(plugin.getMessage(sender, "no_permission", null));
+            return;
+        }
+        VoteAnalytics analytics = plugin.getVoteAnalytics();
+        if (analytics == null) {
+            sender.sendMessage(plugin.getMessage(sender, "analytics_disabled", null));
+            return;
+        }
+        // Worlds are looked up in the rollups, so unloaded worlds can still be inspected
+        VoteRollup rollup = args.length > 1 ? analytics.getWorld(args[1]) : analytics.getAllWorlds();
+        String scope = args.length > 1 ? (rollup != null ? rollup.getName() : args[1]) : analytics.getAllWorlds().getName();
+        Map<String, String> header = new HashMap<>();
+        header.put("scope", scope);
+        long now = System.currentTimeMillis();
+        if (rollup == null || rollup.getWindow(now).getVotes() == 0) {
+            sender.sendMessage(plugin.getMessage(sender, "analytics_empty", header));
+            return;
+        }
+        sender.sendMessage(plugin.getMessage(sender, "analytics_header", header));
+        sendAnalyticsWindow(sender, "last 24h", rollup.getLastDay(now));
+        sendAnalyticsWindow(sender, "last " + rollup.getRetentionHours() + "h", rollup.getWindow(now));
+    }
+
+    private void sendAnalyticsWindow(CommandSender sender, String window, VoteRollup.Bucket totals) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("window", window);
+        placeholders.put("votes", String.valueOf(totals.getVotes()));
+        placeholders.put("passed", String.valueOf(totals.getPassed()));
+        placeholders.put("failed", String.valueOf(totals.getFailed()));
+        placeholders.put("cancelled", String.valueOf(totals.getCancelled()));
+        placeholders.put("manual", String.valueOf(totals.getManual()));
+        sender.sendMessage(plugin.getRawMessage("analytics_window", placeholders));
+        if (totals.getVotes() == 0) return;
+
+        placeholders.put("pass_rate", String.valueOf(Math.round(totals.getPassRate() * 100.0)));
+        placeholders.put("turnout", String.valueOf(Math.round(totals.getTurnout() * 100.0)));
+        placeholders.put("yes_share", String.valueOf(Math.round(totals.getAverageYesShare() * 100.0)));
+        placeholders.put("decision", String.valueOf(totals.getAverageDecisionMillis() / 1000L));
+        sender.sendMessage(plugin.getRawMessage("analytics_rates", placeholders));
+        if (totals.getCancelled() > 0) {
+            placeholders.put("left", String.valueOf(totals.getCancelled("all_eligible_left")));
+            placeholders.put("manual_cancel", String.valueOf(totals.getCancelled("vote_cancel_manual")));
+            placeholders.put("disabled", String.valueOf(totals.getCancelled("vote_cancelled_plugin_disabled")));
+            placeholders.put("other", String.valueOf(totals.getCancelled(null)));
+            sender.sendMessage(plugin.getRawMessage("analytics_cancels", placeholders));
+        }
+    }
+
+    private void handleTraceCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("nightvote.trace")) {
+            sender.sendMessage(plugin.getMessage(sender, "no_permission", null));
+            return;
+        }
+        String action = args.length > 1 ? args[1].toLowerCase() : "status";
+        TraceRecorder recorder = plugin.getTraceRecorder();
+        Map<String, String> placeholders = new HashMap<>();
+        switch (action) {
+            case "start":
+                if (recorder != null) {
+                    placeholders.put("file", recorder.getFile().getName());
+                    sender.sendMessage(plugin.getMessage(sender, "trace_already_running", placeholders));
+                    return;
+                }
+                try {
+                    recorder = plugin.startTrace();
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.WARNING, "Could not start trace recording", e);
+                    sender.sendMessage(plugin.getMessage(sender, "trace_error", null));
+                    return;
+                }
+                placeholders.put("file", recorder.getFile().getName());
+                sender.sendMessage(plugin.getMessage(sender, "trace_started", placeholders));
+                break;
+            case "stop":
+                recorder = plugin.stopTrace();
+                if (recorder == null) {
+                    sender.sendMessage(plugin.getMessage(sender, "trace_not_running", null));
+                    return;
+                }
+                placeholders.put("file", recorder.getFile().getName());
+                placeholders.put("events", String.valueOf(recorder.getEventsWritten()));
+                sender.sendMessage(plugin.getMessage(sender, "trace_stopped", placeholders));
+                break;
+            case "status":
+                if (recorder == null) {
+                    sender.sendMessage(plugin.getMessage(sender, "trace_not_running", null));
+                    return;
+                }
+                placeholders.put("file", recorder.getFile().getName());
+                placeholders.put("events", String.valueOf(recorder.getEventsWritten()));
+                sender.sendMessage(plugin.getMessage(sender, "trace_status", placeholders));
+                break;
+            default:
+                sender.sendMessage(plugin.getMessage(sender, "command_usage_trace", null));
+                break;
+        }
+    }
+
+    private static boolean isNumber(String value) {
+        return !value.isEmpty() && value.length() <= 6 && value.chars().allMatch(Character::isDigit);
+    }
+
+    // "12h" or "7d" in milliseconds, -1 for anything else
+    private static long parseAgeMillis(String value) {
+        if (value.length() < 2) return -1L;
+        String number = value.substring(0, value.length() - 1);
+        if (!isNumber(number) || Integer.parseInt(number) == 0) return -1L;
+        switch (Character.toLowerCase(value.charAt(value.length() - 1))) {
+            case 'h': return Integer.parseInt(number) * 3_600_000L;
+            case 'd': return Integer.parseInt(number) * 86_400_000L;
+            default: return -1L;
+        }
     }
 
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
-        List<String> completions = new ArrayList<>();
-        List<String> subCommands = Arrays.asList("start", "cancel", "reload");
+        return complete(sender, args);
+    }
 
+    // Served from the world index, the session map and the analytics map only, so it is safe on any thread
+    // and AsyncTabCompleter can answer it off the main thread on Paper
+    List<String> complete(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
         if (args.length == 1) {
-            for (String subCmd : subCommands) {
-                if (subCmd.toLowerCase().startsWith(args[0].toLowerCase())) {
-                    // Check permissions for tab completion
-                    if (subCmd.equals("start") && sender.hasPermission("nightvote.start")) completions.add(subCmd);
-                    else if (subCmd.equals("cancel") && sender.hasPermission("nightvote.cancel")) completions.add(subCmd);
-                    else if (subCmd.equals("reload") && sender.hasPermission("nightvote.reload")) completions.add(subCmd);
-                    else if (!subCmd.equals("start") && !subCmd.equals("cancel") && !subCmd.equals("reload")) completions.add(subCmd); // For future expansion
+            for (Map.Entry<String, String> subCommand : SUBCOMMAND_PERMISSIONS.entrySet()) {
+                String name = subCommand.getKey();
+                if (startsWithIgnoreCase(name, args[0]) && sender.hasPermission(subCommand.getValue())) {
+                    completions.add(name);
                 }
             }
-        } else if (args.length == 2 && args[0].equalsIgnoreCase("start") && sender.hasPermission("nightvote.start")) {
-            String currentArg = args[1].toLowerCase();
-            Bukkit.getWorlds().stream()
-                  .filter(world -> world.getEnvironment() == World.Environment.NORMAL)
-                  .map(World::getName)
-                  .filter(name -> name.toLowerCase().startsWith(currentArg))
-                  .forEach(completions::add);
+            return completions;
+        }
+        if (args.length != 2) return completions;
+
+        String subCommand = args[0].toLowerCase(Locale.ROOT);
+        String permission = SUBCOMMAND_PERMISSIONS.get(subCommand);
+        if (permission == null || !sender.hasPermission(permission)) return completions;
+        String currentArg = args[1];
+        switch (subCommand) {
+            case "start":
+            case "history":
+                worldNames.complete(currentArg, completions);
+                break;
+            case "cancel":
+                for (VoteSession session : voteManager.getActiveSessions()) {
+                    String name = session.getWorld().getName();
+                    if (startsWithIgnoreCase(name, currentArg)) completions.add(name);
+                }
+                break;
+            case "analytics":
+                VoteAnalytics analytics = plugin.getVoteAnalytics();
+                if (analytics != null) analytics.completeWorlds(currentArg, completions);
+                break;
+            case "trace":
+                for (String action : TRACE_ACTIONS) {
+                    if (startsWithIgnoreCase(action, currentArg)) completions.add(action);
+                }
+                break;
+            default:
+                break;
         }
         return completions;
     }
+
+    // Without lower-casing either string
+    private static boolean startsWithIgnoreCase(String name, String prefix) {
+        return name.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package night.votes.config;
+
+import night.votes.NightVote;
+import night.votes.managers.MessageManager;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reloads config.yml and the messages_<locale>.yml bundles without parsing anything on the main thread.
+ * A watcher thread notices saved files, a worker thread parses, validates and diffs them against the live values,
+ * and the main thread only swaps in the finished Change. JavaPlugin.getConfig() keeps the values read on enable;
+ * the live state is the settings snapshot and the message bundles.
+ */
+public class ConfigReloader {
+
+    private static final long SETTLE_MILLIS = 1000L; // Editors save in several writes, wait until the files are quiet
+    // Only applied on enable, a reload reports them instead of half-applying them
+    private static final List<String> RESTART_PREFIXES = List.of("history.", "metrics.exporter.", "network.", "analytics.");
+
+    private final NightVote plugin;
+    private final File dataFolder;
+    private final Configuration defaults; // Bundled config.yml, read-only once enabled
+    private final ExecutorService worker;
+    private Thread watcherThread;
+    private WatchService watchService;
+
+    // Only touched by the worker thread, after the constructor
+    private Map<String, Object> liveValues;
+
+    public ConfigReloader(NightVote plugin) {
+        this.plugin = plugin;
+        this.dataFolder = plugin.getDataFolder();
+        this.defaults = plugin.getConfig().getDefaults();
+        this.liveValues = flatten(plugin.getConfig());
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NightVote-ConfigReload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Starts or stops watching the plugin folder; main thread only
+    public void setWatching(boolean watching) {
+        if (watching == (watcherThread != null)) {
+            return;
+        }
+        if (!watching) {
+            stopWatching();
+            return;
+        }
+        try {
+            WatchService service = dataFolder.toPath().getFileSystem().newWatchService();
+            dataFolder.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            this.watchService = service;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not watch " + dataFolder.getPath() + " for config changes, use /nv reload: " + e.getMessage());
+            return;
+        }
+        this.watcherThread = new Thread(this::watchLoop, "NightVote-ConfigWatcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    // Explicit /nv reload: re-reads every file and applies all of it, even values that look unchanged.
+    // done runs on the main thread with true once applied, false if config.yml was rejected.
+    public void reload(Consumer<Boolean> done) {
+        submit(() -> reloadFiles(true, true, done));
+    }
+
+    public void close() {
+        stopWatching();
+        worker.shutdownNow();
+    }
+
+    private void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close(); // Wakes the watcher out of take()
+            } catch (IOException ignored) {
+                // Closing only releases the handle
+            }
+            watchService = null;
+        }
+        watcherThread = null;
+    }
+
+    private void submit(Runnable task) {
+        try {
+            worker.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // Disabled meanwhile
+        }
+    }
+
+    private void watchLoop() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                boolean[] touched = new boolean[2]; // config.yml, any messages_<locale>.yml
+                collect(service.take(), touched);
+                WatchKey next;
+                while ((next = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(next, touched);
+                }
+                if (touched[0] || touched[1]) {
+                    boolean localesTouched = touched[1];
+                    submit(() -> reloadFiles(false, localesTouched, null));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            // Stopped by setWatching(false) or close()
+        }
+    }
+
+    private static void collect(WatchKey key, boolean[] touched) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                touched[0] = true;
+                touched[1] = true;
+                continue;
+            }
+            String name = ((Path) event.context()).getFileName().toString();
+            if (name.equals("config.yml")) {
+                touched[0] = true;
+            } else if (name.startsWith("messages_") && name.endsWith(".yml")) {
+                touched[1] = true;
+            }
+        }
+        key.reset();
+    }
+
+    // Worker thread: everything slow happens here, the main thread gets a ready-made Change or nothing
+    private void reloadFiles(boolean forced, boolean localesTouched, Consumer<Boolean> done) {
+        File file = new File(dataFolder, "config.yml");
+        YamlConfiguration config = new YamlConfiguration();
+        PluginSettings settings;
+        try {
+            config.load(file);
+            if (defaults != null) {
+                config.setDefaults(defaults);
+            }
+            settings = PluginSettings.fromConfigUnresolved(config);
+        } catch (IOException | InvalidConfigurationException | IllegalArgumentException e) {
+            // Keep running on the previous snapshot rather than finding the bad value mid-vote
+            plugin.getLogger().warning("Config reload rejected: " + e.getMessage());
+            if (done != null) {
+                plugin.getPlatform().runTask(() -> done.accept(false));
+            }
+            return;
+        }
+
+        Map<String, Object> values = flatten(config);
+        Set<String> changedKeys = diff(liveValues, values);
+        boolean messagesChanged = forced || localesTouched || changedKeys.stream().anyMatch(key -> key.startsWith("messages."));
+        boolean settingsChanged = forced || changedKeys.stream().anyMatch(key -> !key.startsWith("messages."));
+        if (!messagesChanged && !settingsChanged) {
+            return; // Saved without edits, or our own saveDefaultConfig
+        }
+        this.liveValues = values;
+
+        MessageManager.PreparedMessages messages = messagesChanged ? plugin.getMessageManager().prepare(config) : null;
+        Change change = new Change(settingsChanged ? settings : null, messages, changedKeys, forced);
+        plugin.getPlatform().runTask(() -> {
+            plugin.applyConfigChange(change);
+            if (done != null) {
+                done.accept(true);
+            }
+        });
+    }
+
+    // Leaf values by full path; sections themselves are only containers
+    private static Map<String, Object> flatten(ConfigurationSection config) {
+        Map<String, Object> values = new HashMap<>();
+        for (Map.Entry<String, Object> entry : config.getValues(true).entrySet()) {
+            if (!(entry.getValue() instanceof ConfigurationSection)) {
+                values.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return values;
+    }
+
+    private static Set<String> diff(Map<String, Object> before, Map<String, Object> after) {
+        Set<String> changed = new TreeSet<>();
+        Set<String> keys = new HashSet<>(before.keySet());
+        keys.addAll(after.keySet());
+        for (String key : keys) {
+            if (!Objects.equals(before.get(key), after.get(key))) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Result of one reload, built off the main thread. Null parts did not change and stay as they are.
+     */
+    public static final class Change {
+        private final PluginSettings settings; // World names not resolved yet
+        private final MessageManager.PreparedMessages messages;
+        private final Set<String> changedKeys;
+        private final boolean forced;
+
+        Change(PluginSettings settings, MessageManager.PreparedMessages messages, Set<String> changedKeys, boolean forced) {
+            this.settings = settings;
+            this.messages = messages;
+            this.changedKeys = Collections.unmodifiableSet(changedKeys);
+            this.forced = forced;
+        }
+
+        public PluginSettings getSettings() {
+            return settings;
+        }
+
+        public MessageManager.PreparedMessages getMessages() {
+            return messages;
+        }
+
+        public Set<String> getChangedKeys() {
+            return changedKeys;
+        }
+
+        public boolean isForced() {
+            return forced;
+        }
+
+        // Changed keys that only take effect after a restart
+        public Set<String> getRestartKeys() {
+            Set<String> keys = new TreeSet<>();
+            for (String key : changedKeys) {
+                if (RESTART_PREFIXES.stream().anyMatch(key::startsWith)) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package night.votes.config;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, validated snapshot of config.yml. Built once on enable/reload and published as a whole,
+ * so readers on any thread get a consistent set of values with a single field read.
+ */
+public final class PluginSettings {
+
+    private static final long TICKS_PER_DAY = 24000L;
+
+    private final int voteDurationSeconds;
+    private final long nightStartTick;
+    private final long dayStartTick;
+    private final int minPlayersToStartAutoVote;
+    private final int minPlayersToStartManualVote;
+    private final double requiredYesPercentage;
+    private final boolean attemptOncePerNightCycle;
+    private final boolean earlyDecisionEnabled;
+    private final int earlyDecisionGraceSeconds;
+    private final ProgressDisplayMode progressDisplayMode;
+    private final boolean announceEachVote;
+    private final boolean localizationEnabled;
+    private final boolean historyEnabled;
+    private final long historyMaxFileBytes;
+    private final int historyMaxFiles;
+    private final boolean resumeVotes;
+    private final long maxSnapshotAgeMillis;
+    private final long rejoinGraceMillis;
+    private final boolean metricsExporterEnabled;
+    private final int metricsExporterPort;
+    private final long traceMaxFileBytes;
+    private final boolean networkEnabled;
+    private final String networkNodeId;
+    private final boolean networkCoordinator;
+    private final String networkTransport;
+    private final String networkHost;
+    private final int networkPort;
+    private final String networkSecret;
+    private final long networkResultTimeoutMillis;
+    private final List<String> networkWorldNames;
+    private final boolean watchFiles;
+    private final boolean analyticsEnabled;
+    private final int analyticsRetentionHours;
+    private final long analyticsFlushIntervalTicks;
+    private final List<String> enabledWorldNames;
+    private final Set<UUID> enabledWorldIds; // Resolved from enabledWorldNames for the worlds loaded at build time
+
+    // Reads and validates everything. An invalid value is passed to onInvalid and replaced by its default,
+    // or, with onInvalid null, throws IllegalArgumentException naming the offending key.
+    private PluginSettings(ConfigurationSection config, boolean resolveWorlds, Consumer<String> onInvalid) {
+        this.voteDurationSeconds = intSetting(config, "vote.duration_seconds", 30, 1, Integer.MAX_VALUE, onInvalid);
+        this.nightStartTick = longSetting(config, "vote.night_start_tick", 12550L, 0L, TICKS_PER_DAY - 1, onInvalid);
+        this.dayStartTick = longSetting(config, "vote.day_start_tick", 1000L, 0L, TICKS_PER_DAY - 1, onInvalid);
+        this.minPlayersToStartAutoVote = intSetting(config, "vote.min_players_to_start_auto", 1, 0, Integer.MAX_VALUE, onInvalid);
+        this.minPlayersToStartManualVote = intSetting(config, "vote.min_players_to_start_manual", 1, 0, Integer.MAX_VALUE, onInvalid);
+        this.requiredYesPercentage = doubleSetting(config, "vote.required_yes_percentage", 0.51, 0.0, 1.0, onInvalid);
+        this.attemptOncePerNightCycle = config.getBoolean("vote.attempt_once_per_night_cycle_per_world", true);
+        this.earlyDecisionEnabled = config.getBoolean("vote.early_decision.enabled", false);
+        this.earlyDecisionGraceSeconds = intSetting(config, "vote.early_decision.grace_seconds", 0, 0, 30, onInvalid);
+        this.progressDisplayMode = progressDisplaySetting(config, onInvalid);
+        this.announceEachVote = config.getBoolean("display.announce_each_vote", true);
+        this.localizationEnabled = config.getBoolean("localization.enabled", true);
+        this.historyEnabled = config.getBoolean("history.enabled", true);
+        this.historyMaxFileBytes = intSetting(config, "history.max_file_size_kb", 1024, 1, Integer.MAX_VALUE, onInvalid) * 1024L;
+        this.historyMaxFiles = intSetting(config, "history.max_files", 10, 1, Integer.MAX_VALUE, onInvalid);
+        this.resumeVotes = config.getBoolean("persistence.resume_votes", true);
+        this.maxSnapshotAgeMillis = intSetting(config, "persistence.max_snapshot_age_seconds", 300, 0, Integer.MAX_VALUE, onInvalid) * 1000L;
+        this.rejoinGraceMillis = intSetting(config, "persistence.rejoin_grace_seconds", 60, 0, Integer.MAX_VALUE, onInvalid) * 1000L;
+        this.metricsExporterEnabled = config.getBoolean("metrics.exporter.enabled", false);
+        this.metricsExporterPort = intSetting(config, "metrics.exporter.port", 9464, 1, 65535, onInvalid);
+        this.traceMaxFileBytes = intSetting(config, "trace.max_file_size_mb", 64, 1, 2047, onInvalid) * 1024L * 1024L;
+        String networkNodeId = config.getString("network.node_id", "server-1");
+        if (networkNodeId == null || networkNodeId.isBlank()) {
+            invalid("network.node_id must not be empty", "using server-1", onInvalid);
+            networkNodeId = "server-1";
+        }
+        this.networkNodeId = networkNodeId;
+        this.networkCoordinator = config.getBoolean("network.coordinator", false);
+        this.networkTransport = stringSetting(config, "network.transport", "socket", Set.of("socket", "loopback"), onInvalid);
+        this.networkHost = config.getString("network.host", "127.0.0.1");
+        this.networkPort = intSetting(config, "network.port", 47555, 1, 65535, onInvalid);
+        this.networkSecret = config.getString("network.secret", "");
+        this.networkResultTimeoutMillis = intSetting(config, "network.result_timeout_seconds", 5, 0, 60, onInvalid) * 1000L;
+        this.networkWorldNames = List.copyOf(new LinkedHashSet<>(config.getStringList("network.worlds")));
+        boolean networkEnabled = config.getBoolean("network.enabled", false);
+        if (networkEnabled && networkTransport.equals("socket") && networkSecret.isEmpty()) {
+            invalid("network.secret must be set when the socket transport is enabled", "network votes stay off", onInvalid);
+            networkEnabled = false;
+        }
+        this.networkEnabled = networkEnabled;
+        this.watchFiles = config.getBoolean("reload.watch_files", true);
+        this.analyticsEnabled = config.getBoolean("analytics.enabled", true);
+        this.analyticsRetentionHours = intSetting(config, "analytics.retention_hours", 168, 24, 24 * 366, onInvalid);
+        this.analyticsFlushIntervalTicks = intSetting(config, "analytics.flush_interval_seconds", 300, 1, Integer.MAX_VALUE, onInvalid) * 20L;
+
+        this.enabledWorldNames = List.copyOf(new LinkedHashSet<>(config.getStringList("enabled_worlds_for_auto_vote")));
+        this.enabledWorldIds = resolveWorlds ? resolveWorldIds(enabledWorldNames) : Collections.emptySet();
+    }
+
+    // Same values with the world names resolved again
+    private PluginSettings(PluginSettings base) {
+        this.voteDurationSeconds = base.voteDurationSeconds;
+        this.nightStartTick = base.nightStartTick;
+        this.dayStartTick = base.dayStartTick;
+        this.minPlayersToStartAutoVote = base.minPlayersToStartAutoVote;
+        this.minPlayersToStartManualVote = base.minPlayersToStartManualVote;
+        this.requiredYesPercentage = base.requiredYesPercentage;
+        this.attemptOncePerNightCycle = base.attemptOncePerNightCycle;
+        this.earlyDecisionEnabled = base.earlyDecisionEnabled;
+        this.earlyDecisionGraceSeconds = base.earlyDecisionGraceSeconds;
+        this.progressDisplayMode = base.progressDisplayMode;
+        this.announceEachVote = base.announceEachVote;
+        this.localizationEnabled = base.localizationEnabled;
+        this.historyEnabled = base.historyEnabled;
+        this.historyMaxFileBytes = base.historyMaxFileBytes;
+        this.historyMaxFiles = base.historyMaxFiles;
+        this.resumeVotes = base.resumeVotes;
+        this.maxSnapshotAgeMillis = base.maxSnapshotAgeMillis;
+        this.rejoinGraceMillis = base.rejoinGraceMillis;
+        this.metricsExporterEnabled = base.metricsExporterEnabled;
+        this.metricsExporterPort = base.metricsExporterPort;
+        this.traceMaxFileBytes = base.traceMaxFileBytes;
+        this.networkEnabled = base.networkEnabled;
+        this.networkNodeId = base.networkNodeId;
+        this.networkCoordinator = base.networkCoordinator;
+        this.networkTransport = base.networkTransport;
+        this.networkHost = base.networkHost;
+        this.networkPort = base.networkPort;
+        this.networkSecret = base.networkSecret;
+        this.networkResultTimeoutMillis = base.networkResultTimeoutMillis;
+        this.networkWorldNames = base.networkWorldNames;
+        this.watchFiles = base.watchFiles;
+        this.analyticsEnabled = base.analyticsEnabled;
+        this.analyticsRetentionHours = base.analyticsRetentionHours;
+        this.analyticsFlushIntervalTicks = base.analyticsFlushIntervalTicks;
+        this.enabledWorldNames = base.enabledWorldNames;
+        this.enabledWorldIds = resolveWorldIds(base.enabledWorldNames);
+    }
+
+    // Throws IllegalArgumentException naming the offending key, so a bad reload is rejected up front
+    public static PluginSettings fromConfig(ConfigurationSection config) {
+        return new PluginSettings(config, true, null);
+    }
+
+    // For enable, where there is no previous snapshot to keep: each invalid key falls back to its default
+    // and onInvalid gets the reason, the rest of the file still applies
+    public static PluginSettings fromConfig(ConfigurationSection config, Consumer<String> onInvalid) {
+        return new PluginSettings(config, true, onInvalid);
+    }
+
+    // Same validation without looking up any world, for parsing off the main thread.
+    // No world is enabled until withWorldsResolved() runs on the main thread.
+    public static PluginSettings fromConfigUnresolved(ConfigurationSection config) {
+        return new PluginSettings(config, false, null);
+    }
+
+    // Copy of this snapshot with world names resolved again, e.g. after a world was loaded or unloaded
+    public PluginSettings withWorldsResolved() {
+        return new PluginSettings(this);
+    }
+
+    private static Set<UUID> resolveWorldIds(List<String> names) {
+        Set<UUID> worldIds = new LinkedHashSet<>();
+        for (String name : names) {
+            World world = Bukkit.getWorld(name);
+            if (world != null && world.getEnvironment() == World.Environment.NORMAL) {
+                worldIds.add(world.getUID());
+            }
+        }
+        return Collections.unmodifiableSet(worldIds);
+    }
+
+    private static int intSetting(ConfigurationSection config, String path, int def, int min, int max, Consumer<String> onInvalid) {
+        int value = config.getInt(path, def);
+        if (value >= min && value <= max) return value;
+        invalid(path + " must " + range(min, max) + " (was " + value + ")", "using " + def, onInvalid);
+        return def;
+    }
+
+    private static long longSetting(ConfigurationSection config, String path, long def, long min, long max, Consumer<String> onInvalid) {
+        long value = config.getLong(path, def);
+        if (value >= min && value <= max) return value;
+        invalid(path + " must " + range(min, max) + " (was " + value + ")", "using " + def, onInvalid);
+        return def;
+    }
+
+    private static double doubleSetting(ConfigurationSection config, String path, double def, double min, double max, Consumer<String> onInvalid) {
+        double value = config.getDouble(path, def);
+        if (value >= min && value <= max) return value; // False for NaN as well
+        invalid(path + " must be between " + min + " and " + max + " (was " + value + ")", "using " + def, onInvalid);
+        return def;
+    }
+
+    // Lower-cased, one of allowed
+    private static String stringSetting(ConfigurationSection config, String path, String def, Set<String> allowed, Consumer<String> onInvalid) {
+        String value = config.getString(path, def);
+        String lowerCase = value != null ? value.toLowerCase(Locale.ROOT) : null;
+        if (allowed.contains(lowerCase)) return lowerCase;
+        invalid(path + " must be " + String.join(" or ", allowed.stream().sorted().toList()) + " (was " + value + ")", "using " + def, onInvalid);
+        return def;
+    }
+
+    private static ProgressDisplayMode progressDisplaySetting(ConfigurationSection config, Consumer<String> onInvalid) {
+        try {
+            return ProgressDisplayMode.fromConfig(config.getString("display.progress", "bossbar"));
+        } catch (IllegalArgumentException e) {
+            invalid(e.getMessage(), "using bossbar", onInvalid);
+            return ProgressDisplayMode.BOSSBAR;
+        }
+    }
+
+    private static String range(long min, long max) {
+        if (max == Integer.MAX_VALUE) {
+            return min == 0 ? "not be negative" : min == 1 ? "be greater than 0" : "be at least " + min;
+        }
+        return "be between " + min + " and " + max;
+    }
+
+    private static void invalid(String message, String fallback, Consumer<String> onInvalid) {
+        if (onInvalid == null) {
+            throw new IllegalArgumentException(message);
+        }
+        onInvalid.accept(message + ", " + fallback);
+    }
+
+    public int getVoteDurationSeconds() {
+        return voteDurationSeconds;
+    }
+
+    public long getNightStartTick() {
+        return nightStartTick;
+    }
+
+    public long getDayStartTick() {
+        return dayStartTick;
+    }
+
+    public int getMinPlayersToStartAutoVote() {
+        return minPlayersToStartAutoVote;
+    }
+
+    public int getMinPlayersToStartManualVote() {
+        return minPlayersToStartManualVote;
+    }
+
+    public double getRequiredYesPercentage() {
+        return requiredYesPercentage;
+    }
+
+    public boolean attemptOncePerNightCycle() {
+        return attemptOncePerNightCycle;
+    }
+
+    public boolean isEarlyDecisionEnabled() {
+        return earlyDecisionEnabled;
+    }
+
+    public int getEarlyDecisionGraceSeconds() {
+        return earlyDecisionGraceSeconds;
+    }
+
+    public ProgressDisplayMode getProgressDisplayMode() {
+        return progressDisplayMode;
+    }
+
+    public boolean announceEachVote() {
+        return announceEachVote;
+    }
+
+    public boolean isLocalizationEnabled() {
+        return localizationEnabled;
+    }
+
+    public boolean isHistoryEnabled() {
+        return historyEnabled;
+    }
+
+    public long getHistoryMaxFileBytes() {
+        return historyMaxFileBytes;
+    }
+
+    public int getHistoryMaxFiles() {
+        return historyMaxFiles;
+    }
+
+    public boolean isResumeVotes() {
+        return resumeVotes;
+    }
+
+    public long getMaxSnapshotAgeMillis() {
+        return maxSnapshotAgeMillis;
+    }
+
+    // How long voters of a resumed vote have to come back before they stop counting as eligible
+    public long getRejoinGraceMillis() {
+        return rejoinGraceMillis;
+    }
+
+    public boolean isMetricsExporterEnabled() {
+        return metricsExporterEnabled;
+    }
+
+    public int getMetricsExporterPort() {
+        return metricsExporterPort;
+    }
+
+    public long getTraceMaxFileBytes() {
+        return traceMaxFileBytes;
+    }
+
+    public boolean isNetworkEnabled() {
+        return networkEnabled;
+    }
+
+    public String getNetworkNodeId() {
+        return networkNodeId;
+    }
+
+    public boolean isNetworkCoordinator() {
+        return networkCoordinator;
+    }
+
+    public String getNetworkTransport() {
+        return networkTransport;
+    }
+
+    public String getNetworkHost() {
+        return networkHost;
+    }
+
+    public int getNetworkPort() {
+        return networkPort;
+    }
+
+    public String getNetworkSecret() {
+        return networkSecret;
+    }
+
+    public long getNetworkResultTimeoutMillis() {
+        return networkResultTimeoutMillis;
+    }
+
+    public List<String> getNetworkWorldNames() {
+        return networkWorldNames;
+    }
+
+    public boolean isWatchFiles() {
+        return watchFiles;
+    }
+
+    public boolean isAnalyticsEnabled() {
+        return analyticsEnabled;
+    }
+
+    public int getAnalyticsRetentionHours() {
+        return analyticsRetentionHours;
+    }
+
+    public long getAnalyticsFlushIntervalTicks() {
+        return analyticsFlushIntervalTicks;
+    }
+
+    public List<String> getEnabledWorldNames() {
+        return enabledWorldNames;
+    }
+
+    public Set<UUID> getEnabledWorldIds() {
+        return enabledWorldIds;
+    }
+
+    public boolean isAutoVoteEnabled(World world) {
+        return enabledWorldIds.contains(world.getUID());
+    }
+}
@@ -0,0 +1,16 @@
+package night.votes.config;
+
+// How live vote progress is shown to the players of the voting world
+public enum ProgressDisplayMode {
+    NONE,      // Chat messages only
+    BOSSBAR,   // One shared boss bar per vote session
+    ACTIONBAR; // Action bar line, resent while it would otherwise fade
+
+    public static ProgressDisplayMode fromConfig(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("display.progress must be one of none, bossbar, actionbar (was " + value + ")");
+        }
+    }
+}
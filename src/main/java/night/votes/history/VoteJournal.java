@@ -0,0 +1,367 @@
+package night.votes.history;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only binary log of vote outcomes, split into size-rotated segments (journal-000001.dat).
+ * Every segment has a sidecar index (journal-000001.idx) of fixed 32 byte entries: timestamp, world UID and
+ * the record's offset in the data file. The query thread keeps each segment's index in memory as a timestamp
+ * column, an offset column and per-world entry lists, topped up from the file as it grows, so a query
+ * binary-searches to its time bound and reads only the records of the asked world.
+ * Writes happen on a background thread with one fsync per batch, queries on a second one; neither touches
+ * the main thread.
+ */
+public class VoteJournal {
+
+    private static final int INDEX_ENTRY_BYTES = 32;
+    private static final int MAX_BATCH = 256;
+    private static final int INDEX_BLOCK_ENTRIES = 2048; // Index entries read per FileChannel read, 64 KB
+    private static final String PREFIX = "journal-";
+
+    private final File directory;
+    private final long maxSegmentBytes;
+    private final int maxSegments;
+    private final Logger logger;
+
+    private final BlockingQueue<VoteRecord> pending = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private final ExecutorService queryExecutor;
+    private volatile boolean running = true;
+
+    // Only touched by the writer thread
+    private int segment;
+    private FileChannel dataChannel;
+    private FileChannel indexChannel;
+    private final ByteBuffer indexEntries = ByteBuffer.allocate(MAX_BATCH * INDEX_ENTRY_BYTES); // Entries of the batch not yet committed
+
+    // Only touched by the query thread
+    private final Map<Integer, SegmentIndex> segmentIndexes = new HashMap<>();
+
+    public VoteJournal(File directory, long maxSegmentBytes, int maxSegments, Logger logger) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegments = maxSegments;
+        this.logger = logger;
+        this.queryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NightVote-JournalQuery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writerThread = new Thread(this::writeLoop, "NightVote-JournalWriter");
+        this.writerThread.setDaemon(true);
+    }
+
+    public void start() {
+        writerThread.start();
+    }
+
+    // Non-blocking, safe from any thread
+    public void append(VoteRecord record) {
+        if (running) {
+            pending.offer(record);
+        }
+    }
+
+    // Stops accepting records, writes what is queued and closes the files
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(5000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queryExecutor.shutdown();
+    }
+
+    // Newest first. worldId null means every world; stops at records older than sinceMillis.
+    public CompletableFuture<List<VoteRecord>> query(UUID worldId, long sinceMillis, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return readNewest(worldId, sinceMillis, limit);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read vote journal", e);
+            }
+        }, queryExecutor);
+    }
+
+    private void writeLoop() {
+        List<VoteRecord> batch = new ArrayList<>();
+        try {
+            openLatestSegment();
+            while (running || !pending.isEmpty()) {
+                VoteRecord first = pending.poll(500L, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                pending.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Vote journal writer stopped, " + (batch.size() + pending.size()) + " records not written", e);
+            running = false; // append() drops records from now on instead of queueing them forever
+            pending.clear();
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void writeBatch(List<VoteRecord> batch) throws IOException {
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(128);
+        DataOutputStream recordOut = new DataOutputStream(recordBytes);
+
+        for (VoteRecord record : batch) {
+            if (dataChannel.size() >= maxSegmentBytes) {
+                commit();
+                rotate();
+            }
+            recordBytes.reset();
+            record.writeTo(recordOut);
+            recordOut.flush();
+
+            long offset = dataChannel.size();
+            ByteBuffer data = ByteBuffer.wrap(recordBytes.toByteArray());
+            while (data.hasRemaining()) dataChannel.write(data);
+
+            indexEntries.putLong(record.getTimestamp());
+            indexEntries.putLong(record.getWorldId().getMostSignificantBits());
+            indexEntries.putLong(record.getWorldId().getLeastSignificantBits());
+            indexEntries.putLong(offset);
+        }
+        commit(); // One fsync per file for the whole batch
+    }
+
+    // Data is on disk before its index entries are even written, so after a crash no entry points past the data
+    private void commit() throws IOException {
+        if (indexEntries.position() == 0) return;
+        dataChannel.force(false);
+        indexEntries.flip();
+        while (indexEntries.hasRemaining()) indexChannel.write(indexEntries);
+        indexEntries.clear();
+        indexChannel.force(false);
+    }
+
+    private void openLatestSegment() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        int[] segments = listSegments();
+        openSegment(segments.length > 0 ? segments[segments.length - 1] : 1);
+    }
+
+    private void rotate() throws IOException {
+        closeChannels();
+        openSegment(segment + 1);
+        int[] segments = listSegments();
+        for (int i = 0; i < segments.length - maxSegments; i++) {
+            // Oldest segments beyond the limit are dropped together with their index
+            dataFile(segments[i]).delete();
+            indexFile(segments[i]).delete();
+        }
+    }
+
+    private void openSegment(int number) throws IOException {
+        segment = number;
+        dataChannel = FileChannel.open(dataFile(number).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        indexChannel = FileChannel.open(indexFile(number).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Drop a torn index entry from a crash, appending after whole entries only
+        long wholeEntries = indexChannel.size() / INDEX_ENTRY_BYTES * INDEX_ENTRY_BYTES;
+        // and entries pointing past the data, left by journals written before data was synced ahead of the index
+        long dataLength = dataChannel.size();
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+        while (wholeEntries > 0) {
+            offset.clear();
+            readFully(indexChannel, offset, wholeEntries - Long.BYTES); // Offset is an entry's last field
+            if (offset.flip().remaining() < Long.BYTES || offset.getLong() < dataLength) break;
+            wholeEntries -= INDEX_ENTRY_BYTES;
+        }
+        indexChannel.truncate(wholeEntries);
+        indexChannel.position(wholeEntries);
+    }
+
+    private void closeChannels() {
+        try {
+            if (dataChannel != null) dataChannel.close();
+            if (indexChannel != null) indexChannel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not close vote journal segment " + segment, e);
+        }
+        dataChannel = null;
+        indexChannel = null;
+    }
+
+    private List<VoteRecord> readNewest(UUID worldId, long sinceMillis, int limit) throws IOException {
+        List<VoteRecord> results = new ArrayList<>();
+        int[] segments = listSegments();
+        Set<Integer> present = new HashSet<>();
+        for (int number : segments) present.add(number);
+        segmentIndexes.keySet().retainAll(present); // Forget segments dropped by rotation
+
+        for (int s = segments.length - 1; s >= 0 && results.size() < limit; s--) {
+            File indexFile = indexFile(segments[s]);
+            if (!indexFile.isFile()) continue;
+            SegmentIndex index = segmentIndexes.computeIfAbsent(segments[s], number -> new SegmentIndex());
+            index.refresh(indexFile);
+            try (FileChannel data = FileChannel.open(dataFile(segments[s]).toPath(), StandardOpenOption.READ)) {
+                if (index.collect(worldId, sinceMillis, limit, data, results)) {
+                    break; // This segment reaches back before sinceMillis, older ones are older still
+                }
+            }
+        }
+        return results;
+    }
+
+    private int[] listSegments() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(".dat"));
+        if (files == null) return new int[0];
+        return Arrays.stream(files)
+                .map(file -> file.getName().substring(PREFIX.length(), file.getName().length() - 4))
+                .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                .mapToInt(Integer::parseInt)
+                .sorted()
+                .toArray();
+    }
+
+    private File dataFile(int number) {
+        return new File(directory, String.format("%s%06d.dat", PREFIX, number));
+    }
+
+    private File indexFile(int number) {
+        return new File(directory, String.format("%s%06d.idx", PREFIX, number));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) return; // Short at the end of the file
+        }
+    }
+
+    /**
+     * The query thread's copy of one segment's index: timestamp and offset columns, plus each world's entry
+     * numbers in file order. Read in blocks once, then only the entries appended since the last query.
+     */
+    private static final class SegmentIndex {
+        private long[] timestamps = new long[256];
+        private long[] offsets = new long[256];
+        private final Map<UUID, WorldEntries> byWorld = new HashMap<>();
+        private int count;
+
+        void refresh(File indexFile) throws IOException {
+            try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+                long available = channel.size() / INDEX_ENTRY_BYTES;
+                if (available < count) {
+                    // Truncated when the writer reopened it after a crash, read it again
+                    count = 0;
+                    byWorld.clear();
+                }
+                ByteBuffer block = ByteBuffer.allocate(INDEX_BLOCK_ENTRIES * INDEX_ENTRY_BYTES);
+                while (count < available) {
+                    block.clear();
+                    block.limit((int) Math.min(block.capacity(), (available - count) * INDEX_ENTRY_BYTES));
+                    readFully(channel, block, (long) count * INDEX_ENTRY_BYTES);
+                    block.flip();
+                    if (block.remaining() < INDEX_ENTRY_BYTES) break;
+                    while (block.remaining() >= INDEX_ENTRY_BYTES) {
+                        add(block.getLong(), new UUID(block.getLong(), block.getLong()), block.getLong());
+                    }
+                }
+            }
+        }
+
+        private void add(long timestamp, UUID worldId, long offset) {
+            if (count == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            timestamps[count] = timestamp;
+            offsets[count] = offset;
+            byWorld.computeIfAbsent(worldId, id -> new WorldEntries()).add(count);
+            count++;
+        }
+
+        // Adds matching records newest first; true if the segment starts before sinceMillis
+        boolean collect(UUID worldId, long sinceMillis, int limit, FileChannel data, List<VoteRecord> out) throws IOException {
+            int[] entries = null; // Null: every entry
+            int size = count;
+            if (worldId != null) {
+                WorldEntries world = byWorld.get(worldId);
+                entries = world != null ? world.entries : null;
+                size = world != null ? world.size : 0;
+            }
+            long dataLength = data.size();
+            for (int k = size - 1, first = firstAtOrAfter(entries, size, sinceMillis); k >= first && out.size() < limit; k--) {
+                VoteRecord record = readRecord(data, dataLength, entries != null ? entries[k] : k);
+                if (record != null) {
+                    out.add(record);
+                }
+            }
+            return count > 0 && timestamps[0] < sinceMillis;
+        }
+
+        // Entries are appended in time order, so the timestamp column is sorted
+        private int firstAtOrAfter(int[] entries, int size, long sinceMillis) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[entries != null ? entries[mid] : mid] < sinceMillis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Null for an entry the data file does not fully hold, e.g. a record cut short by a crash
+        private VoteRecord readRecord(FileChannel data, long dataLength, int entry) throws IOException {
+            long offset = offsets[entry];
+            if (offset < 0 || offset >= dataLength) return null;
+            data.position(offset);
+            try {
+                return VoteRecord.readFrom(new DataInputStream(new BufferedInputStream(Channels.newInputStream(data), 512)));
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class WorldEntries {
+        private int[] entries = new int[16];
+        private int size;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package night.votes.history;
+
+public enum VoteOutcome {
+    PASSED,
+    FAILED,
+    CANCELLED
+}
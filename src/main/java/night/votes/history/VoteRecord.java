@@ -0,0 +1,114 @@
+package night.votes.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+// One finished or cancelled vote, as written to the journal
+public final class VoteRecord {
+
+    private final long timestamp; // When the vote ended, epoch millis
+    private final UUID worldId;
+    private final String worldName;
+    private final VoteOutcome outcome;
+    private final boolean manual;
+    private final int yesVotes;
+    private final int noVotes;
+    private final int eligibleVoters;
+    private final long durationMillis;
+    private final String reason; // Cancel reason, empty otherwise
+    private final String reasonKey; // Message key of the cancel reason; not journaled, empty on records read back
+
+    public VoteRecord(long timestamp, UUID worldId, String worldName, VoteOutcome outcome, boolean manual,
+                      int yesVotes, int noVotes, int eligibleVoters, long durationMillis, String reason) {
+        this(timestamp, worldId, worldName, outcome, manual, yesVotes, noVotes, eligibleVoters, durationMillis, reason, "");
+    }
+
+    public VoteRecord(long timestamp, UUID worldId, String worldName, VoteOutcome outcome, boolean manual,
+                      int yesVotes, int noVotes, int eligibleVoters, long durationMillis, String reason, String reasonKey) {
+        this.timestamp = timestamp;
+        this.worldId = worldId;
+        this.worldName = worldName;
+        this.outcome = outcome;
+        this.manual = manual;
+        this.yesVotes = yesVotes;
+        this.noVotes = noVotes;
+        this.eligibleVoters = eligibleVoters;
+        this.durationMillis = durationMillis;
+        this.reason = reason != null ? reason : "";
+        this.reasonKey = reasonKey != null ? reasonKey : "";
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(timestamp);
+        out.writeLong(worldId.getMostSignificantBits());
+        out.writeLong(worldId.getLeastSignificantBits());
+        out.writeUTF(worldName);
+        out.writeByte(outcome.ordinal());
+        out.writeBoolean(manual);
+        out.writeInt(yesVotes);
+        out.writeInt(noVotes);
+        out.writeInt(eligibleVoters);
+        out.writeLong(durationMillis);
+        out.writeUTF(reason);
+    }
+
+    static VoteRecord readFrom(DataInput in) throws IOException {
+        long timestamp = in.readLong();
+        UUID worldId = new UUID(in.readLong(), in.readLong());
+        String worldName = in.readUTF();
+        VoteOutcome outcome = VoteOutcome.values()[in.readByte()];
+        boolean manual = in.readBoolean();
+        int yesVotes = in.readInt();
+        int noVotes = in.readInt();
+        int eligibleVoters = in.readInt();
+        long durationMillis = in.readLong();
+        String reason = in.readUTF();
+        return new VoteRecord(timestamp, worldId, worldName, outcome, manual, yesVotes, noVotes, eligibleVoters, durationMillis, reason);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public UUID getWorldId() {
+        return worldId;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public VoteOutcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isManual() {
+        return manual;
+    }
+
+    public int getYesVotes() {
+        return yesVotes;
+    }
+
+    public int getNoVotes() {
+        return noVotes;
+    }
+
+    public int getEligibleVoters() {
+        return eligibleVoters;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getReasonKey() {
+        return reasonKey;
+    }
+}
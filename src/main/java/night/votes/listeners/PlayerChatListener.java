@@ -1,85 +1,84 @@
 package night.votes.listeners;
 
-import night.votes.NightVote;
 import night.votes.managers.VoteManager;
+import night.votes.managers.VoteQueue;
+import night.votes.managers.SessionView;
+import night.votes.metrics.LatencyHistogram;
+import night.votes.metrics.PluginMetrics;
+import night.votes.server.PluginContext;
+import night.votes.trace.TraceRecorder;
+import night.votes.utils.Utils;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
-import org.bukkit.scheduler.BukkitRunnable;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 public class PlayerChatListener implements Listener {
 
-    private final NightVote plugin;
+    private final PluginContext plugin;
     private final VoteManager voteManager;
+    private final VoteQueue voteQueue;
+    private final PluginMetrics metrics;
+    private final LatencyHistogram chatTimer;
 
-    public PlayerChatListener(NightVote plugin, VoteManager voteManager) {
+    public PlayerChatListener(PluginContext plugin, VoteManager voteManager, VoteQueue voteQueue) {
         this.plugin = plugin;
         this.voteManager = voteManager;
+        this.voteQueue = voteQueue;
+        this.metrics = plugin.getMetrics();
+        this.chatTimer = metrics.timer(PluginMetrics.CHAT_HANDLER);
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true) // High to catch before other plugins potentially
     public void onPlayerChat(AsyncPlayerChatEvent event) {
-        if (!voteManager.isVoteActive()) {
-            return;
-        }
-
-        Player player = event.getPlayer();
-
-        // Check permission to vote
-        if (!player.hasPermission("nightvote.vote")) {
-            return; // Silently ignore if no permission, or send a message
-        }
-        
-        // Check if player is in the world where vote is active
-        if (voteManager.getWorldForVote() != null && !player.getWorld().equals(voteManager.getWorldForVote())) {
-            // Player is not in the voting world. Optionally inform them if they try to vote.
-            // For now, we just don't process their Y/N as a vote if they aren't in the world.
-            return;
-        }
+        long start = System.nanoTime();
+        try {
+            Map<UUID, SessionView> sessions = voteManager.getSessionViews(); // One volatile read, no main-thread state
+            if (sessions.isEmpty()) {
+                return;
+            }
 
+            Player player = event.getPlayer();
 
-        String message = event.getMessage().trim();
+            // Only the session of the player's own world can take this vote
+            SessionView session = sessions.get(player.getWorld().getUID());
+            if (session == null) {
+                return;
+            }
 
-        if (message.equalsIgnoreCase("Y") || message.equalsIgnoreCase("yes") ||
-            message.equalsIgnoreCase("N") || message.equalsIgnoreCase("no")) {
-            
-            // Check again if player is in the correct world, in case they teleported
-            // between the initial check and now (though unlikely for AsyncPlayerChatEvent).
-            // This is more crucial if voteManager.getWorldForVote() could change rapidly.
-            if (voteManager.getWorldForVote() == null || !player.getWorld().equals(voteManager.getWorldForVote())) {
-                 Map<String, String> placeholders = new HashMap<>();
-                 placeholders.put("world", voteManager.getWorldForVote() != null ? voteManager.getWorldForVote().getName() : "the vote world");
-                 player.sendMessage(plugin.getMessage("not_eligible_world", placeholders));
-                 event.setCancelled(true); // Cancel their "Y/N" message
-                 return;
+            // Check permission to vote, a cached bit rather than a permission lookup per message
+            if (!plugin.getPlatform().canVote(player)) {
+                return; // Silently ignore if no permission, or send a message
             }
 
-            final String voteChoice = message;
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    // Final check for active vote and world, as BukkitRunnable runs later
-                    if (voteManager.isVoteActive() && voteManager.getWorldForVote() != null && 
-                        player.isOnline() && player.getWorld().equals(voteManager.getWorldForVote())) {
-                        voteManager.addVote(player, voteChoice);
-                    } else if (voteManager.isVoteActive()) {
-                        // Vote is active but player is no longer eligible (e.g. changed world)
-                         Map<String, String> placeholders = new HashMap<>();
-                         placeholders.put("world", voteManager.getWorldForVote() != null ? voteManager.getWorldForVote().getName() : "the vote world");
-                         player.sendMessage(plugin.getMessage("not_eligible_world", placeholders));
-                    } else {
-                        // Vote ended before this runnable executed
-                        player.sendMessage(plugin.getMessage("no_active_vote", null));
-                    }
+            Boolean decision = Utils.parseVoteChoice(event.getMessage());
+            if (decision != null) {
+                event.setCancelled(true); // Cancel the Y/N message from appearing in global chat
+                UUID playerId = player.getUniqueId();
+                // Eligibility and repeat votes are settled here; claim() lets exactly one vote per player through
+                if (!session.isEligible(playerId)) {
+                    player.sendMessage(plugin.getMessage(player, "not_eligible_general", null));
+                    return;
+                }
+                if (!session.claim(playerId)) {
+                    player.sendMessage(plugin.getMessage(player, "already_voted", null));
+                    return;
                 }
-            }.runTask(plugin); // Run on the main server thread
-            
-            event.setCancelled(true); // Cancel the Y/N message from appearing in global chat
+                // Hand the vote to the main thread through the queue, VoteDrainTask applies it next tick.
+                // The drain re-checks the session and the player's world, they may have changed by then.
+                voteQueue.submit(playerId, session, decision);
+                metrics.recordChatVoteQueued();
+                TraceRecorder recorder = plugin.getTraceRecorder();
+                if (recorder != null) {
+                    recorder.recordChatVote(player, player.getWorld(), decision);
+                }
+            }
+        } finally {
+            chatTimer.recordSince(start);
         }
     }
 }
\ No newline at end of file
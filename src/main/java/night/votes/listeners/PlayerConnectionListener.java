@@ -2,6 +2,10 @@ package night.votes.listeners;
 
 import night.votes.NightVote;
 import night.votes.managers.VoteManager;
+import night.votes.managers.VoteSession;
+import night.votes.server.ServerPlatform;
+import night.votes.tasks.JoinNoticeTask;
+import night.votes.trace.TraceRecorder;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -9,61 +13,62 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.scheduler.BukkitRunnable;
-
-import java.util.HashMap;
-import java.util.Map;
 
 public class PlayerConnectionListener implements Listener {
 
     private final NightVote plugin;
     private final VoteManager voteManager;
+    private final ServerPlatform platform;
+    private final JoinNoticeTask joinNotices;
 
-    public PlayerConnectionListener(NightVote plugin, VoteManager voteManager) {
+    // On Folia these events fire on the player's region thread; vote bookkeeping is handed to the main thread
+    public PlayerConnectionListener(NightVote plugin, VoteManager voteManager, JoinNoticeTask joinNotices) {
         this.plugin = plugin;
         this.voteManager = voteManager;
+        this.platform = plugin.getPlatform();
+        this.joinNotices = joinNotices;
     }
 
     @EventHandler(priority = EventPriority.MONITOR) // Monitor so other plugins can handle join first
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        plugin.getMessageManager().preload(player.getLocale()); // Read off the main thread before the first message
         World playerWorld = player.getWorld();
+        TraceRecorder recorder = plugin.getTraceRecorder();
+        if (recorder != null) {
+            recorder.recordJoin(player);
+        }
+        VoteSession session = voteManager.getSession(playerWorld);
 
-        if (voteManager.isVoteActive() && playerWorld.equals(voteManager.getWorldForVote())) {
-            // Run with a delay to allow other plugins to process join / player to fully load
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    if (player.isOnline() && player.getWorld().equals(voteManager.getWorldForVote())) { // Re-check state
-                        Map<String, String> placeholders = new HashMap<>();
-                        placeholders.put("world", playerWorld.getName());
-                        
-                        player.sendMessage(plugin.getMessage("vote_in_progress_join_world", placeholders));
-                        player.sendMessage(plugin.getMessage("vote_in_progress_join_instructions", placeholders));
-                        // Note: Players joining mid-vote are NOT automatically added to eligibleVoters in current VoteManager logic.
-                        // This is by design for simplicity: vote starts with current world population.
-                        // If they were *already* eligible (e.g. re-logged quickly), they can still vote.
-                    }
-                }
-            }.runTaskLater(plugin, 40L); // 2 seconds delay
+        if (session != null) {
+            // Sent with a delay to allow other plugins to process join / player to fully load; dropped if the vote is over by then
+            // Note: Players joining mid-vote are NOT automatically added to eligibleVoters in current VoteManager logic.
+            // This is by design for simplicity: vote starts with current world population.
+            // If they were *already* eligible (e.g. re-logged quickly), they can still vote.
+            joinNotices.submit(player, session, 40L); // 2 seconds delay
         }
     }
 
+    // The client reports its real language shortly after joining, and again whenever the player switches it
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLocaleChange(PlayerLocaleChangeEvent event) {
+        plugin.getMessageManager().preload(event.getLocale());
+    }
+
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
-        if (voteManager.isVoteActive() && voteManager.getWorldForVote() != null && 
-            player.getWorld().equals(voteManager.getWorldForVote())) {
+        TraceRecorder recorder = plugin.getTraceRecorder();
+        if (recorder != null) {
+            recorder.recordQuit(player);
+        }
+        if (voteManager.isVoteActive(player.getWorld())) {
             // Run on next tick to avoid issues with player object state during quit
             // and ensure voteManager logic is sound with player having left the world (for vote count).
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    // Player object from event is still valid for UUID/name, but getPlayer() might be null
-                    voteManager.handlePlayerQuit(event.getPlayer());
-                }
-            }.runTask(plugin);
+            // Player object from event is still valid for UUID/name, but getPlayer() might be null
+            platform.runTask(() -> voteManager.handlePlayerQuit(player));
         }
     }
 
@@ -71,31 +76,20 @@ public class PlayerConnectionListener implements Listener {
     public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
         Player player = event.getPlayer();
         World fromWorld = event.getFrom(); // The world the player left
+        TraceRecorder recorder = plugin.getTraceRecorder();
+        if (recorder != null) {
+            recorder.recordWorldChange(player, fromWorld);
+        }
+
+        // If player left a world where a vote is active
+        if (voteManager.isVoteActive(fromWorld)) {
+            platform.runTask(() -> voteManager.handlePlayerChangedWorld(player, fromWorld));
+        }
 
-        if (voteManager.isVoteActive() && voteManager.getWorldForVote() != null) {
-            // If player left the world where vote is active
-            if (fromWorld.equals(voteManager.getWorldForVote())) {
-                 new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        voteManager.handlePlayerChangedWorld(player, fromWorld);
-                    }
-                }.runTask(plugin);
-            }
-            // If player entered the world where vote is active
-            else if (player.getWorld().equals(voteManager.getWorldForVote())) {
-                 new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                         if (player.isOnline() && player.getWorld().equals(voteManager.getWorldForVote())) { // Re-check state
-                            Map<String, String> placeholders = new HashMap<>();
-                            placeholders.put("world", player.getWorld().getName());
-                            player.sendMessage(plugin.getMessage("vote_in_progress_join_world", placeholders));
-                            player.sendMessage(plugin.getMessage("vote_in_progress_join_instructions", placeholders));
-                        }
-                    }
-                }.runTaskLater(plugin, 20L); // 1 second delay
-            }
+        // If player entered a world where a vote is active (both can apply when two worlds are voting)
+        VoteSession session = voteManager.getSession(player.getWorld());
+        if (session != null) {
+            joinNotices.submit(player, session, 20L); // 1 second delay, replaces a join notice still pending
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package night.votes.listeners;
+
+import night.votes.server.PresenceIndex;
+import night.votes.server.WorldNameIndex;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+// Keeps the PresenceIndex in step with where players are, and the WorldNameIndex with which worlds are loaded.
+public class PresenceListener implements Listener {
+
+    private final PresenceIndex presence;
+    private final WorldNameIndex worldNames;
+
+    public PresenceListener(PresenceIndex presence, WorldNameIndex worldNames) {
+        this.presence = presence;
+        this.worldNames = worldNames;
+    }
+
+    // Lowest, so the player is already counted when the other join handlers run
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        presence.join(event.getPlayer());
+    }
+
+    // Monitor, so other quit handlers still see the player in their world
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        presence.quit(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        presence.changeWorld(event.getPlayer(), event.getFrom());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onWorldLoad(WorldLoadEvent event) {
+        worldNames.loadWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        presence.unloadWorld(event.getWorld());
+        worldNames.unloadWorld(event.getWorld());
+    }
+}
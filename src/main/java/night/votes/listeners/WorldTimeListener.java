@@ -0,0 +1,94 @@
+package night.votes.listeners;
+
+import night.votes.NightVote;
+import night.votes.tasks.NightScheduler;
+import night.votes.trace.TraceRecorder;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.event.world.TimeSkipEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps the NightScheduler's one-shot tasks in line with each world's clock.
+public class WorldTimeListener implements Listener {
+
+    private final NightVote plugin;
+    private final NightScheduler nightScheduler;
+    private final AtomicBoolean rearmAllPending = new AtomicBoolean(); // Command events fire on region threads on Folia
+
+    public WorldTimeListener(NightVote plugin, NightScheduler nightScheduler) {
+        this.plugin = plugin;
+        this.nightScheduler = nightScheduler;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTimeSkip(TimeSkipEvent event) {
+        World world = event.getWorld();
+        TraceRecorder recorder = plugin.getTraceRecorder();
+        if (recorder != null) {
+            recorder.recordTimeSet(world, world.getTime() + event.getSkipAmount());
+        }
+        // The new time is only applied after the event, so recompute on the next tick
+        plugin.getPlatform().runTask(() -> nightScheduler.arm(world));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        World world = event.getWorld();
+        runOnMainThread(() -> {
+            plugin.refreshEnabledWorlds(); // Resolve the new world's UID if it is listed in the config
+            nightScheduler.arm(world);
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        World world = event.getWorld();
+        runOnMainThread(() -> nightScheduler.disarm(world));
+    }
+
+    // Spigot has no gamerule change event, so watch for the command that changes doDaylightCycle
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        if (isGameRuleCommand(event.getMessage().substring(1))) {
+            scheduleRearmAll();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        String command = event.getCommand();
+        if (isGameRuleCommand(command.startsWith("/") ? command.substring(1) : command)) {
+            scheduleRearmAll();
+        }
+    }
+
+    private boolean isGameRuleCommand(String command) {
+        String lower = command.toLowerCase();
+        return (lower.startsWith("gamerule ") || lower.startsWith("minecraft:gamerule "))
+                && lower.contains("dodaylightcycle");
+    }
+
+    private void scheduleRearmAll() {
+        if (!rearmAllPending.compareAndSet(false, true)) return; // Several gamerule commands in one tick need only one pass
+        plugin.getPlatform().runTask(() -> {
+            rearmAllPending.set(false);
+            nightScheduler.armAll();
+        });
+    }
+
+    // The scheduler's task map and the settings snapshot are only replaced on the main thread
+    private void runOnMainThread(Runnable task) {
+        if (plugin.getPlatform().isMainThread()) {
+            task.run();
+        } else {
+            plugin.getPlatform().runTask(task);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package night.votes.managers;
+
+import night.votes.managers.MessageManager.MessageBundle;
+import night.votes.server.PluginContext;
+import night.votes.server.ServerPlatform;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders a message once per audience (once per locale with localization on) and sends the prebuilt
+ * string to every recipient.
+ * Counts messages and bytes sent, overall and per vote session, so fan-out cost is measurable.
+ */
+public class Broadcaster {
+
+    private final PluginContext plugin;
+    private final ServerPlatform platform;
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+
+    public Broadcaster(PluginContext plugin) {
+        this.plugin = plugin;
+        this.platform = plugin.getPlatform();
+    }
+
+    // Everyone currently in the session's world, counted against the session
+    public int toWorld(VoteSession session, String key, Map<String, String> placeholders) {
+        return toWorld(session, key, placeholders, true);
+    }
+
+    public int toWorld(VoteSession session, String key, Map<String, String> placeholders, boolean prefixed) {
+        return send(platform.getPlayers(session.getWorld()), key, placeholders, prefixed, session);
+    }
+
+    public int toWorld(World world, String key, Map<String, String> placeholders) {
+        return send(platform.getPlayers(world), key, placeholders, true, null);
+    }
+
+    // Only the players still eligible to vote in the session
+    public int toVoters(VoteSession session, String key, Map<String, String> placeholders) {
+        List<Player> voters = new ArrayList<>(session.getEligibleCount());
+        for (UUID voterId : session.getEligibleVoterIds()) {
+            Player voter = platform.getPlayer(voterId);
+            if (voter != null) {
+                voters.add(voter);
+            }
+        }
+        return send(voters, key, placeholders, true, session);
+    }
+
+    public int toServer(String key, Map<String, String> placeholders) {
+        return send(platform.getOnlinePlayers(), key, placeholders, true, null);
+    }
+
+    // Renders once per distinct message bundle (locale) in the audience, not once per player
+    private int send(Iterable<? extends Player> audience, String key, Map<String, String> placeholders,
+                     boolean prefixed, VoteSession session) {
+        MessageManager messages = plugin.getMessageManager();
+        Map<MessageBundle, Rendered> renders = new IdentityHashMap<>(4);
+        int recipients = 0;
+        long bytes = 0;
+        for (Player p : audience) {
+            MessageBundle bundle = messages.bundleFor(p);
+            Rendered rendered = renders.get(bundle);
+            if (rendered == null) {
+                rendered = new Rendered(messages.render(bundle, key, placeholders, prefixed));
+                renders.put(bundle, rendered);
+            }
+            p.sendMessage(rendered.text);
+            recipients++;
+            bytes += rendered.bytes;
+        }
+        record(recipients, bytes, session);
+        return recipients;
+    }
+
+    private void record(int recipients, long bytes, VoteSession session) {
+        if (recipients == 0) return;
+        messagesSent.add(recipients);
+        bytesSent.add(bytes);
+        if (session != null) {
+            session.recordBroadcast(recipients, bytes);
+        }
+    }
+
+    private static final class Rendered {
+        private final String text;
+        private final int bytes;
+
+        Rendered(String text) {
+            this.text = text;
+            this.bytes = text.getBytes(StandardCharsets.UTF_8).length;
+        }
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+}
@@ -0,0 +1,223 @@
+package night.votes.managers;
+
+import night.votes.metrics.LatencyHistogram;
+import night.votes.metrics.PluginMetrics;
+import night.votes.server.PluginContext;
+import night.votes.utils.MessageTemplate;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+public class MessageManager {
+
+    private static final String DEFAULT_PREFIX = "&6[NightVote] ";
+
+    private final PluginContext plugin;
+    // Swapped as a whole on reload so renders never see a half-loaded set
+    private volatile MessageBundle defaultBundle = new MessageBundle("default", Collections.emptyMap(), MessageTemplate.compile(DEFAULT_PREFIX));
+    // Client locale -> bundle, loaded on the loader thread when a player joins or switches language.
+    // Locales without a messages_<locale>.yml map to the default bundle, so they share its renders.
+    // Replaced as a whole by apply(), so a reload never leaves a mix of old and new locale bundles.
+    private volatile Map<String, MessageBundle> localeBundles = new ConcurrentHashMap<>();
+    private final Set<String> loadingLocales = ConcurrentHashMap.newKeySet();
+    private final ExecutorService loader; // Reads and compiles messages_<locale>.yml, never the main or chat threads
+    private final LatencyHistogram renderTimer;
+
+    public MessageManager(PluginContext plugin) {
+        this.plugin = plugin;
+        this.renderTimer = plugin.getMetrics().timer(PluginMetrics.MESSAGE_RENDER);
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NightVote-MessageLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void load() {
+        this.defaultBundle = compileDefaults(plugin.getConfig());
+        this.localeBundles = new ConcurrentHashMap<>(); // Loaded again on demand against the new defaults
+    }
+
+    public void close() {
+        loader.shutdownNow();
+    }
+
+    // Compiles a full set of bundles without touching the live ones; safe on any thread.
+    // Locales players currently use are rebuilt here too, so the first message after a reload reads no files.
+    public PreparedMessages prepare(ConfigurationSection config) {
+        MessageBundle defaults = compileDefaults(config);
+        Map<String, MessageBundle> locales = new ConcurrentHashMap<>();
+        for (String locale : localeBundles.keySet()) {
+            locales.put(locale, loadLocaleBundle(locale, defaults));
+        }
+        return new PreparedMessages(defaults, locales);
+    }
+
+    public void apply(PreparedMessages prepared) {
+        this.defaultBundle = prepared.defaults;
+        this.localeBundles = prepared.locales;
+    }
+
+    private static MessageBundle compileDefaults(ConfigurationSection config) {
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        ConfigurationSection section = config.getConfigurationSection("messages");
+        if (section != null) {
+            compileInto(section, compiled);
+        }
+        MessageTemplate prefix = MessageTemplate.compile(config.getString("messages.prefix", DEFAULT_PREFIX));
+        return new MessageBundle("default", compiled, prefix);
+    }
+
+    public MessageBundle getDefaultBundle() {
+        return defaultBundle;
+    }
+
+    public MessageBundle bundleFor(CommandSender recipient) {
+        if (!(recipient instanceof Player) || !plugin.getSettings().isLocalizationEnabled()) {
+            return defaultBundle;
+        }
+        String locale = ((Player) recipient).getLocale();
+        if (locale == null || locale.isEmpty()) {
+            return defaultBundle;
+        }
+        String key = locale.toLowerCase(Locale.ROOT);
+        MessageBundle bundle = localeBundles.get(key);
+        if (bundle != null) {
+            return bundle;
+        }
+        preload(key); // Usually already requested on join; until it is ready the player reads the defaults
+        return defaultBundle;
+    }
+
+    // Starts loading the bundle of a client locale in the background, if it is not loaded or loading yet; any thread
+    public void preload(String locale) {
+        if (locale == null || locale.isEmpty() || !plugin.getSettings().isLocalizationEnabled()) return;
+        String key = locale.toLowerCase(Locale.ROOT);
+        if (localeBundles.containsKey(key) || !loadingLocales.add(key)) return;
+        try {
+            loader.execute(() -> {
+                try {
+                    Map<String, MessageBundle> target = localeBundles;
+                    MessageBundle base = defaultBundle;
+                    MessageBundle bundle = loadLocaleBundle(key, base);
+                    if (target == localeBundles && base == defaultBundle) {
+                        target.putIfAbsent(key, bundle);
+                    } // Otherwise a reload replaced the set meanwhile; the next bundleFor asks again
+                } finally {
+                    loadingLocales.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loadingLocales.remove(key); // Disabled meanwhile
+        }
+    }
+
+    public int getLoadedLocaleCount() {
+        MessageBundle base = defaultBundle;
+        return (int) localeBundles.values().stream().filter(bundle -> bundle != base).distinct().count();
+    }
+
+    // Tries messages_de_at.yml, then messages_de.yml, else falls back to config.yml's messages
+    private MessageBundle loadLocaleBundle(String locale, MessageBundle base) {
+        int separator = locale.indexOf('_');
+        String[] candidates = separator > 0 ? new String[]{locale, locale.substring(0, separator)} : new String[]{locale};
+        for (String candidate : candidates) {
+            File file = new File(plugin.getDataFolder(), "messages_" + candidate + ".yml");
+            if (!file.isFile()) continue;
+
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+            Map<String, MessageTemplate> compiled = new HashMap<>(base.templates); // Missing keys fall back to the defaults
+            compileInto(config, compiled);
+            String prefix = config.getString("prefix");
+            plugin.getLogger().info("Loaded message bundle " + file.getName() + " for locale " + locale);
+            return new MessageBundle(candidate, compiled, prefix != null ? MessageTemplate.compile(prefix) : base.prefix);
+        }
+        return base;
+    }
+
+    private static void compileInto(ConfigurationSection section, Map<String, MessageTemplate> compiled) {
+        for (String key : section.getKeys(false)) {
+            String raw = section.getString(key);
+            if (raw != null) {
+                compiled.put(key, MessageTemplate.compile(raw));
+            }
+        }
+    }
+
+    public String getMessage(String key, Map<String, String> placeholders) {
+        return render(defaultBundle, key, placeholders, true);
+    }
+
+    public String getRawMessage(String key, Map<String, String> placeholders) {
+        return render(defaultBundle, key, placeholders, false);
+    }
+
+    public String getMessage(CommandSender recipient, String key, Map<String, String> placeholders) {
+        return render(bundleFor(recipient), key, placeholders, true);
+    }
+
+    public String render(MessageBundle bundle, String key, Map<String, String> placeholders, boolean prefixed) {
+        MessageTemplate template = bundle.templates.get(key);
+        if (template == null) {
+            return missingMessage(key);
+        }
+        long start = System.nanoTime();
+        try {
+            if (!prefixed) {
+                return template.render(placeholders);
+            }
+            StringBuilder builder = new StringBuilder(64);
+            bundle.prefix.renderTo(builder, placeholders);
+            template.renderTo(builder, placeholders);
+            return builder.toString();
+        } finally {
+            renderTimer.recordSince(start);
+        }
+    }
+
+    private String missingMessage(String key) {
+        plugin.getLogger().warning("Missing message for key: messages." + key);
+        return ChatColor.RED + "Missing message: messages." + key;
+    }
+
+    // Bundles compiled off the main thread by prepare(), waiting to be swapped in
+    public static final class PreparedMessages {
+        private final MessageBundle defaults;
+        private final Map<String, MessageBundle> locales;
+
+        PreparedMessages(MessageBundle defaults, Map<String, MessageBundle> locales) {
+            this.defaults = defaults;
+            this.locales = locales;
+        }
+    }
+
+    // Compiled templates of one language, immutable once built
+    public static final class MessageBundle {
+        private final String locale;
+        private final Map<String, MessageTemplate> templates;
+        private final MessageTemplate prefix;
+
+        MessageBundle(String locale, Map<String, MessageTemplate> templates, MessageTemplate prefix) {
+            this.locale = locale;
+            this.templates = templates;
+            this.prefix = prefix;
+        }
+
+        public String getLocale() {
+            return locale;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package night.votes.managers;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What the async chat threads may see of a running vote: its id, world and the voters eligible when it started,
+ * all immutable, plus a concurrent set of players whose vote was already taken. Lets the chat listener reject
+ * ineligible and repeated votes on its own thread; the main thread still makes the final check when applying them.
+ */
+public final class SessionView {
+
+    private final long sessionId;
+    private final UUID worldId;
+    private final Set<UUID> eligibleVoters; // As of the start, players who left since are rejected on the main thread
+    private final Set<UUID> claimedVoters = ConcurrentHashMap.newKeySet();
+
+    SessionView(long sessionId, UUID worldId, Set<UUID> eligibleVoters) {
+        this.sessionId = sessionId;
+        this.worldId = worldId;
+        this.eligibleVoters = Set.copyOf(eligibleVoters);
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    public UUID getWorldId() {
+        return worldId;
+    }
+
+    public boolean isEligible(UUID playerId) {
+        return eligibleVoters.contains(playerId);
+    }
+
+    // Atomically takes the player's one vote; false if they already voted or have one queued
+    public boolean claim(UUID playerId) {
+        return claimedVoters.add(playerId);
+    }
+
+    public boolean hasClaimed(UUID playerId) {
+        return claimedVoters.contains(playerId);
+    }
+
+    // A removed vote (player left the world) frees the claim again
+    void release(UUID playerId) {
+        claimedVoters.remove(playerId);
+    }
+}
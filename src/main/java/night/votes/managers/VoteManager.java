@@ -1,45 +1,139 @@
 package night.votes.managers;
 
-import night.votes.NightVote;
-import org.bukkit.Bukkit;
+import night.votes.config.PluginSettings;
+import night.votes.history.VoteOutcome;
+import night.votes.history.VoteRecord;
+import night.votes.managers.VoteQueue.QueuedVote;
+import night.votes.metrics.LatencyHistogram;
+import night.votes.metrics.PluginMetrics;
+import night.votes.network.NetworkVoteSync;
+import night.votes.server.PluginContext;
+import night.votes.server.ServerPlatform;
+import night.votes.utils.Utils;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
-import org.bukkit.scheduler.BukkitRunnable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class VoteManager {
 
-    private final NightVote plugin;
-    private boolean voteActive = false;
-    private final Map<UUID, Boolean> playerVotes = new HashMap<>(); // true for YES, false for NO
-    private Set<UUID> eligibleVoters = new HashSet<>();
-    private BukkitTask voteEndTask;
-    private World worldForVote; // The world where the current vote is active
+    private final PluginContext plugin;
+    private final ServerPlatform platform;
+    private final Broadcaster broadcaster;
+    // Active vote sessions keyed by world UID. Concurrent because the async chat listener looks sessions up.
+    private final Map<UUID, VoteSession> activeSessions = new ConcurrentHashMap<>();
+    // Read-only views of the same sessions for the chat threads, replaced as a whole whenever a session starts or ends
+    private volatile Map<UUID, SessionView> sessionViews = Map.of();
+    private long nextSessionId = 1L;
+
+    // Notified of every vote that ends or is cancelled, e.g. the history journal
+    private final List<Consumer<VoteRecord>> outcomeListeners = new CopyOnWriteArrayList<>();
 
     // Tracks if a vote has been attempted in a specific world during the current night cycle
     private final Map<String, Boolean> worldVoteAttemptedThisCycle = new HashMap<>();
 
-    public VoteManager(NightVote plugin) {
+    private final LatencyHistogram addVoteTimer;
+    private final LatencyHistogram applyVoteBatchTimer;
+    private final LatencyHistogram endVoteTimer;
+    private final LatencyHistogram playerQuitTimer;
+    private NetworkVoteSync networkSync; // Null unless network.enabled
+
+    public VoteManager(PluginContext plugin, Broadcaster broadcaster) {
         this.plugin = plugin;
+        this.platform = plugin.getPlatform();
+        this.broadcaster = broadcaster;
+        PluginMetrics metrics = plugin.getMetrics();
+        this.addVoteTimer = metrics.timer(PluginMetrics.ADD_VOTE);
+        this.applyVoteBatchTimer = metrics.timer(PluginMetrics.APPLY_VOTE_BATCH);
+        this.endVoteTimer = metrics.timer(PluginMetrics.END_VOTE);
+        this.playerQuitTimer = metrics.timer(PluginMetrics.PLAYER_QUIT);
+    }
+
+    public Broadcaster getBroadcaster() {
+        return broadcaster;
+    }
+
+    public void setNetworkSync(NetworkVoteSync networkSync) {
+        this.networkSync = networkSync;
+    }
+
+    public void addOutcomeListener(Consumer<VoteRecord> listener) {
+        outcomeListeners.add(listener);
+    }
+
+    public void removeOutcomeListener(Consumer<VoteRecord> listener) {
+        outcomeListeners.remove(listener);
+    }
+
+    private void publishOutcome(VoteSession session, VoteOutcome outcome, String reason, String reasonKey) {
+        publishOutcome(session, outcome, reason, reasonKey, session.getYesVotes(), session.getNoVotes(), session.getEligibleCount());
+    }
+
+    private void publishOutcome(VoteSession session, VoteOutcome outcome, String reason, String reasonKey,
+                                int yesVotes, int noVotes, int eligibleVoters) {
+        if (outcomeListeners.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        VoteRecord record = new VoteRecord(now, session.getWorldId(), session.getWorld().getName(), outcome, session.isManual(),
+                yesVotes, noVotes, eligibleVoters, now - session.getStartedAtMillis(), reason, reasonKey);
+        for (Consumer<VoteRecord> listener : outcomeListeners) {
+            try {
+                listener.accept(record);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, "Vote outcome listener failed", e);
+            }
+        }
     }
 
     public boolean isVoteActive() {
-        return voteActive;
+        return !activeSessions.isEmpty();
+    }
+
+    public boolean isVoteActive(World world) {
+        return world != null && activeSessions.containsKey(world.getUID());
+    }
+
+    public VoteSession getSession(World world) {
+        return world != null ? activeSessions.get(world.getUID()) : null;
+    }
+
+    public VoteSession getSession(UUID worldId) {
+        return worldId != null ? activeSessions.get(worldId) : null;
+    }
+
+    // Safe on any thread; one volatile read gives a consistent set of running votes
+    public Map<UUID, SessionView> getSessionViews() {
+        return sessionViews;
     }
 
-    public World getWorldForVote() {
-        return worldForVote;
+    private void publishSessionViews() {
+        Map<UUID, SessionView> views = new HashMap<>();
+        for (VoteSession session : activeSessions.values()) {
+            views.put(session.getWorldId(), session.getView());
+        }
+        sessionViews = Map.copyOf(views);
+    }
+
+    public Collection<VoteSession> getActiveSessions() {
+        return Collections.unmodifiableCollection(activeSessions.values());
     }
 
     public boolean hasVoted(Player player) {
-        return playerVotes.containsKey(player.getUniqueId());
+        VoteSession session = getSession(player.getWorld());
+        return session != null && session.hasVoted(player.getUniqueId());
     }
 
     public boolean getVoteAttemptedThisCycleForWorld(String worldName) {
@@ -47,44 +141,48 @@ public class VoteManager {
     }
 
     public void setVoteAttemptedThisCycleForWorld(String worldName, boolean attempted) {
-        if (attempted && plugin.attemptOncePerNightCycle()) {
+        if (attempted && plugin.getSettings().attemptOncePerNightCycle()) {
             worldVoteAttemptedThisCycle.put(worldName, true);
         } else if (!attempted) {
             worldVoteAttemptedThisCycle.remove(worldName);
         }
     }
-    
+
     public void resetVoteAttemptedThisCycleForWorld(String worldName) {
         worldVoteAttemptedThisCycle.remove(worldName);
         plugin.getLogger().info("Vote attempt cycle reset for world: " + worldName);
     }
 
+    public Set<String> getVoteAttemptedWorlds() {
+        return new HashSet<>(worldVoteAttemptedThisCycle.keySet());
+    }
+
     public void resetAllVoteAttemptedCycles() {
         worldVoteAttemptedThisCycle.clear();
         plugin.getLogger().info("All world vote attempt cycles have been reset.");
     }
 
     public boolean startVote(World world, boolean isManual, Player initiator) {
-        if (voteActive) {
-            // Inform initiator if manual and vote active elsewhere
-            if (isManual && initiator != null) {
-                 Map<String, String> placeholders = new HashMap<>();
-                 placeholders.put("other_world", worldForVote != null ? worldForVote.getName() : "another world");
-                initiator.sendMessage(plugin.getMessage("vote_already_active_elsewhere", placeholders));
-            }
-            return false; // Global vote already active
-        }
         if (world == null || world.getEnvironment() != World.Environment.NORMAL) {
             if (isManual && initiator != null) {
                 Map<String, String> placeholders = new HashMap<>();
                 placeholders.put("world", world != null ? world.getName() : "unknown");
-                initiator.sendMessage(plugin.getMessage("error_world_not_overworld", placeholders));
+                initiator.sendMessage(plugin.getMessage(initiator, "error_world_not_overworld", placeholders));
             }
             return false;
         }
+        if (isVoteActive(world)) {
+            if (isManual && initiator != null) {
+                Map<String, String> placeholders = new HashMap<>();
+                placeholders.put("world", world.getName());
+                initiator.sendMessage(plugin.getMessage(initiator, "vote_already_active_in_world", placeholders));
+            }
+            return false; // This world already has its own vote running
+        }
 
-        int minPlayers = isManual ? plugin.getMinPlayersToStartManualVote() : plugin.getMinPlayersToStartAutoVote();
-        long playersInWorld = world.getPlayers().size();
+        PluginSettings settings = plugin.getSettings();
+        int minPlayers = isManual ? settings.getMinPlayersToStartManualVote() : settings.getMinPlayersToStartAutoVote();
+        int playersInWorld = platform.getPlayerCount(world);
 
         if (playersInWorld < minPlayers) {
             if (isManual && initiator != null) {
@@ -92,7 +190,7 @@ public class VoteManager {
                 placeholders.put("world", world.getName());
                 placeholders.put("min_players", String.valueOf(minPlayers));
                 placeholders.put("online_players", String.valueOf(playersInWorld));
-                initiator.sendMessage(plugin.getMessage("not_enough_players_manual", placeholders));
+                initiator.sendMessage(plugin.getMessage(initiator, "not_enough_players_manual", placeholders));
             } else if (!isManual) { // Log for auto vote if below threshold
                  Map<String, String> placeholders = new HashMap<>();
                  placeholders.put("world", world.getName());
@@ -105,272 +203,461 @@ public class VoteManager {
             return false;
         }
 
-        this.worldForVote = world;
-        this.voteActive = true;
-        this.playerVotes.clear();
-        this.eligibleVoters = world.getPlayers().stream()
+        Set<UUID> eligibleVoters = platform.getPlayers(world).stream()
                                 .map(Player::getUniqueId)
-                                .collect(Collectors.toSet()); // Players currently in the target world
-
-        if (plugin.attemptOncePerNightCycle()) {
+                                .collect(Collectors.toCollection(HashSet::new)); // Players currently in the target world
+        VoteSession session = new VoteSession(nextSessionId++, world, isManual, eligibleVoters);
+        session.setRequiredYesPercentage(settings.getRequiredYesPercentage());
+        boolean networked = networkSync != null && networkSync.isNetworked(world);
+        if (networked) session.markNetworked();
+        activeSessions.put(session.getWorldId(), session);
+        publishSessionViews();
+
+        if (settings.attemptOncePerNightCycle()) {
             setVoteAttemptedThisCycleForWorld(world.getName(), true);
         }
 
         Map<String, String> placeholders = new HashMap<>();
         placeholders.put("world", world.getName());
-        placeholders.put("time", String.valueOf(plugin.getVoteDurationSeconds()));
-        
+        placeholders.put("time", String.valueOf(settings.getVoteDurationSeconds()));
+
         String startMessageKey = isManual ? "vote_start_manual" : "vote_started";
         if (isManual && initiator != null) placeholders.put("player", initiator.getName());
 
-        // Broadcast to players in the specific world
-        for (Player p : world.getPlayers()) {
-            p.sendMessage(plugin.getMessage(startMessageKey, placeholders));
-            p.sendMessage(plugin.getMessage("vote_instructions", placeholders));
-        }
+        // Broadcast to players in the specific world, each message rendered once
+        broadcaster.toWorld(session, startMessageKey, placeholders);
+        broadcaster.toWorld(session, "vote_instructions", placeholders);
         plugin.getLogger().info("Night vote started in " + world.getName() + (isManual ? " by " + (initiator != null ? initiator.getName() : "CONSOLE") : " automatically") + ". Eligible: " + eligibleVoters.size());
 
 
-        voteEndTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (voteActive && worldForVote.equals(world)) { // Ensure it's still the same vote
-                    endVote();
-                }
-            }
-        }.runTaskLater(plugin, plugin.getVoteDurationSeconds() * 20L);
+        // A network vote waits a little past its own timer for the coordinator's result before deciding alone
+        long durationMillis = settings.getVoteDurationSeconds() * 1000L + (networked ? settings.getNetworkResultTimeoutMillis() : 0L);
+        scheduleVoteEnd(session, durationMillis);
+        if (networked) networkSync.onVoteStarted(session);
         return true;
     }
 
-    public void addVote(Player player, String voteChoice) {
-        if (!voteActive || worldForVote == null) {
-            player.sendMessage(plugin.getMessage("no_active_vote", null));
-            return;
+    private void scheduleVoteEnd(VoteSession session, long remainingMillis) {
+        session.setEndsAtMillis(System.currentTimeMillis() + remainingMillis);
+        session.setVoteEndTask(platform.runTaskLater(() -> {
+            if (activeSessions.get(session.getWorldId()) == session) { // Ensure it's still the same vote
+                endVote(session);
+            }
+        }, Math.max(1L, remainingMillis / 50L)));
+    }
+
+    // Brings back a vote saved by VoteSnapshotStore, with its tally, remaining time and required share.
+    // Restores usually run on enable with nobody online yet, so the saved voters get the rejoin window to come back
+    // to the world; whoever is not there when it closes is dropped as if they had left.
+    VoteSession restoreSession(World world, boolean manual, long startedAtMillis, Set<UUID> eligibleVoters,
+                               Map<UUID, Boolean> votes, long remainingMillis, double requiredYesPercentage) {
+        if (isVoteActive(world)) return null;
+        PluginSettings settings = plugin.getSettings();
+        VoteSession session = new VoteSession(nextSessionId++, world, manual, new HashSet<>(eligibleVoters), startedAtMillis);
+        session.setRequiredYesPercentage(requiredYesPercentage);
+        boolean networked = networkSync != null && networkSync.isNetworked(world);
+        if (networked) session.markNetworked();
+        for (Map.Entry<UUID, Boolean> vote : votes.entrySet()) {
+            session.recordVote(vote.getKey(), vote.getValue());
         }
-        if (!player.getWorld().equals(worldForVote)) {
+        activeSessions.put(session.getWorldId(), session);
+        publishSessionViews();
+        scheduleVoteEnd(session, remainingMillis);
+        if (networked) networkSync.onVoteStarted(session); // Rejoins the round on the coordinator, or opens one
+
+        // Players returning later get the join notice instead
+        if (platform.getPlayerCount(world) > 0) {
             Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("world", worldForVote.getName());
-            player.sendMessage(plugin.getMessage("not_eligible_world", placeholders));
-            return;
+            placeholders.put("world", world.getName());
+            placeholders.put("time", String.valueOf(session.getSecondsRemaining()));
+            broadcaster.toWorld(session, "vote_resumed", placeholders);
         }
-        if (!eligibleVoters.contains(player.getUniqueId())) {
-            player.sendMessage(plugin.getMessage("not_eligible_general", null));
-            return;
+        plugin.getLogger().info("Night vote in " + world.getName() + " resumed with " + session.getVoteCount() + " votes and "
+                + session.getSecondsRemaining() + " seconds remaining.");
+
+        long graceMillis = Math.min(settings.getRejoinGraceMillis(), remainingMillis);
+        if (graceMillis <= 0L) {
+            dropAbsentVoters(session);
+        } else {
+            platform.runTaskLater(() -> dropAbsentVoters(session), Math.max(1L, graceMillis / 50L));
         }
-        if (hasVoted(player)) {
-            player.sendMessage(plugin.getMessage("already_voted", null));
-            return;
+        return session;
+    }
+
+    // End of a resumed vote's rejoin window: saved voters not in the world now stop counting, with their votes
+    private void dropAbsentVoters(VoteSession session) {
+        if (activeSessions.get(session.getWorldId()) != session) return; // Ended meanwhile
+        Set<UUID> present = new HashSet<>();
+        for (Player player : platform.getPlayers(session.getWorld())) {
+            present.add(player.getUniqueId());
+        }
+        int dropped = 0;
+        for (UUID voterId : new ArrayList<>(session.getEligibleVoterIds())) {
+            if (present.contains(voterId)) continue;
+            session.removeEligible(voterId);
+            session.removeVote(voterId);
+            dropped++;
+        }
+        if (dropped == 0) return;
+        plugin.getLogger().info("Resumed vote in " + session.getWorld().getName() + ": " + dropped + " voters did not return and were dropped.");
+        if (!session.isNetworked()) {
+            reevaluateAfterLeave(session);
         }
+    }
 
-        boolean decision;
-        if (voteChoice.equalsIgnoreCase("Y") || voteChoice.equalsIgnoreCase("yes")) {
-            decision = true;
-        } else if (voteChoice.equalsIgnoreCase("N") || voteChoice.equalsIgnoreCase("no")) {
-            decision = false;
-        } else {
-            return;
+    // Stops every vote without an outcome, so it can be resumed from a snapshot later
+    public void suspendAllVotes() {
+        for (VoteSession session : new ArrayList<>(activeSessions.values())) {
+            session.clearVoteEndTask();
+            activeSessions.remove(session.getWorldId(), session);
+            publishSessionViews();
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("world", session.getWorld().getName());
+            broadcaster.toWorld(session, "vote_suspended", placeholders);
         }
+    }
 
-        playerVotes.put(player.getUniqueId(), decision);
-        
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("player", player.getName());
-        placeholders.put("vote", decision ? "&aYES" : "&cNO");
+    public void addVote(Player player, String voteChoice) {
+        long start = System.nanoTime();
+        try {
+            Boolean decision = Utils.parseVoteChoice(voteChoice);
+            if (decision == null) {
+                return;
+            }
+            VoteSession session = getSession(player.getWorld());
+            if (!recordVote(session, player, decision)) {
+                return;
+            }
+
+            if (plugin.getSettings().announceEachVote()) {
+                Map<String, String> placeholders = new HashMap<>();
+                placeholders.put("player", player.getName());
+                placeholders.put("vote", decision ? "&aYES" : "&cNO");
+
+                // Broadcast to players in the voting world
+                broadcaster.toWorld(session, "player_voted", placeholders);
+            }
+
+
+            // Check if all currently eligible players in the world have voted, a counter comparison
+            if (!session.isNetworked() && session.hasEveryoneVoted()) {
+                endVote(session);
+            } else {
+                checkEarlyDecision(session);
+            }
+        } finally {
+            addVoteTimer.recordSince(start);
+        }
+    }
+
+    // Applies one tick's worth of queued chat votes, with a single announcement per session
+    public void applyVoteBatch(List<QueuedVote> batch) {
+        if (batch.isEmpty()) return;
+        long start = System.nanoTime();
+        try {
+            boolean announce = plugin.getSettings().announceEachVote(); // Live progress display may replace these lines
+            Map<VoteSession, BatchTally> tallies = new LinkedHashMap<>();
+            for (QueuedVote vote : batch) {
+                Player player = platform.getPlayer(vote.getPlayerId());
+                if (player == null || !player.isOnline()) {
+                    vote.releaseClaim();
+                    continue; // Quit before the drain, the quit handler takes care of them
+                }
+                VoteSession session = getSession(vote.getWorldId());
+                if (session == null || session.getId() != vote.getSessionId()) {
+                    // Vote ended before this batch was applied, maybe with a new one started in the same world
+                    vote.releaseClaim();
+                    player.sendMessage(plugin.getMessage(player, "no_active_vote", null));
+                    continue;
+                }
+                if (!player.getWorld().equals(session.getWorld())) {
+                    // Vote is active but player is no longer eligible (e.g. changed world)
+                    vote.releaseClaim();
+                    Map<String, String> placeholders = new HashMap<>();
+                    placeholders.put("world", session.getWorld().getName());
+                    player.sendMessage(plugin.getMessage(player, "not_eligible_world", placeholders));
+                    continue;
+                }
+                if (recordVote(session, player, vote.isYes())) {
+                    tallies.computeIfAbsent(session, s -> new BatchTally()).add(player.getName(), vote.isYes());
+                } else if (!session.hasVoted(player.getUniqueId())) {
+                    vote.releaseClaim(); // Not eligible any more; a claim backing a recorded vote stays
+                }
+            }
+
+            for (Map.Entry<VoteSession, BatchTally> entry : tallies.entrySet()) {
+                VoteSession session = entry.getKey();
+                BatchTally tally = entry.getValue();
+                if (announce) {
+                    Map<String, String> placeholders = new HashMap<>();
+                    String messageKey;
+                    if (tally.yes + tally.no == 1) {
+                        placeholders.put("player", tally.lastPlayer);
+                        placeholders.put("vote", tally.yes == 1 ? "&aYES" : "&cNO");
+                        messageKey = "player_voted";
+                    } else {
+                        placeholders.put("count", String.valueOf(tally.yes + tally.no));
+                        placeholders.put("yes_votes", String.valueOf(tally.yes));
+                        placeholders.put("no_votes", String.valueOf(tally.no));
+                        messageKey = "players_voted_batch";
+                    }
+                    broadcaster.toWorld(session, messageKey, placeholders);
+                }
 
-        // Broadcast to players in the voting world
-        for (Player p : worldForVote.getPlayers()) {
-            p.sendMessage(plugin.getMessage("player_voted", placeholders));
+                if (activeSessions.get(session.getWorldId()) != session) continue;
+                if (!session.isNetworked() && session.hasEveryoneVoted()) {
+                    endVote(session);
+                } else {
+                    checkEarlyDecision(session);
+                }
+            }
+        } finally {
+            applyVoteBatchTimer.recordSince(start);
+        }
+    }
+
+    // Validates and records a single vote, telling the player why if it was rejected
+    private boolean recordVote(VoteSession session, Player player, boolean decision) {
+        if (session == null) {
+            player.sendMessage(plugin.getMessage(player, "no_active_vote", null));
+            return false;
+        }
+        if (!session.isEligible(player.getUniqueId())) {
+            player.sendMessage(plugin.getMessage(player, "not_eligible_general", null));
+            return false;
+        }
+        if (!session.recordVote(player.getUniqueId(), decision)) {
+            player.sendMessage(plugin.getMessage(player, "already_voted", null));
+            return false;
         }
+        return true;
+    }
 
+    private static final class BatchTally {
+        private int yes = 0;
+        private int no = 0;
+        private String lastPlayer;
 
-        // Check if all currently eligible players in the world have voted
-        long currentEligibleOnlineCount = eligibleVoters.stream()
-                                                .map(Bukkit::getPlayer)
-                                                .filter(p -> p != null && p.isOnline() && p.getWorld().equals(worldForVote))
-                                                .count();
-        if (playerVotes.size() >= currentEligibleOnlineCount && currentEligibleOnlineCount > 0) {
-            endVote();
+        void add(String playerName, boolean vote) {
+            if (vote) yes++;
+            else no++;
+            lastPlayer = playerName;
         }
     }
 
     public void handlePlayerQuit(Player player) {
-        if (!voteActive || worldForVote == null || !player.getWorld().equals(worldForVote)) {
-            return; // Player was not in the vote world or no vote active
+        long start = System.nanoTime();
+        try {
+            VoteSession session = getSession(player.getWorld());
+            if (session == null) {
+                return; // No vote active in the world the player left from
+            }
+            removeVoter(session, player);
+        } finally {
+            playerQuitTimer.recordSince(start);
+        }
+    }
+
+    public void handlePlayerChangedWorld(Player player, World fromWorld) {
+        VoteSession session = getSession(fromWorld);
+        if (session == null) {
+            return; // Player was not in a vote world
         }
+        // Treat as if they quit the vote world for eligibility and vote counting
+        removeVoter(session, player);
+    }
 
+    private void removeVoter(VoteSession session, Player player) {
+        World world = session.getWorld();
         UUID playerId = player.getUniqueId();
-        boolean wasEligible = eligibleVoters.remove(playerId); // Remove from eligible if they were
+        boolean wasEligible = session.removeEligible(playerId); // Remove from eligible if they were
 
-        if (playerVotes.containsKey(playerId)) {
-            playerVotes.remove(playerId);
+        if (session.removeVote(playerId) != null) {
             Map<String, String> placeholders = new HashMap<>();
             placeholders.put("player", player.getName());
-            placeholders.put("world", worldForVote.getName());
+            placeholders.put("world", world.getName());
             // Broadcast to remaining players in the voting world
-            for (Player p : worldForVote.getPlayers()) {
-                 p.sendMessage(plugin.getMessage("player_left_vote_removed", placeholders));
-            }
+            broadcaster.toWorld(session, "player_left_vote_removed", placeholders);
         }
 
-        // If they were eligible and left, re-evaluate if vote should end
-        if (wasEligible) {
-            // Count remaining eligible online players
-            Set<UUID> stillEligibleAndOnline = eligibleVoters.stream()
-                .filter(id -> Bukkit.getPlayer(id) != null && Bukkit.getPlayer(id).isOnline() && Bukkit.getPlayer(id).getWorld().equals(worldForVote))
-                .collect(Collectors.toSet());
+        // If they were eligible and left, re-evaluate if vote should end; network votes end on the coordinator's result
+        if (wasEligible && !session.isNetworked()) {
+            reevaluateAfterLeave(session);
+        }
+    }
 
-            if (stillEligibleAndOnline.isEmpty() && voteActive) {
-                Map<String, String> placeholders = new HashMap<>();
-                placeholders.put("world", worldForVote.getName());
-                // Broadcast to players in the voting world (if any left, or globally if preferred)
-                for (Player p : Bukkit.getOnlinePlayers()) { // Or just worldForVote.getPlayers()
-                    p.sendMessage(plugin.getMessage("all_eligible_left", placeholders));
-                }
-                cancelVote(plugin.getRawMessage("all_eligible_left", placeholders), true);
-                return;
-            }
-            
-            // If all remaining eligible players have now voted
-            if (voteActive && !stillEligibleAndOnline.isEmpty() && playerVotes.keySet().containsAll(stillEligibleAndOnline)) {
-                 endVote();
-            }
+    private void reevaluateAfterLeave(VoteSession session) {
+        // Eligible voters are removed as they quit or change world, so the set size is the online count
+        if (session.getEligibleCount() == 0) {
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("world", session.getWorld().getName());
+            // Broadcast globally, nobody eligible is left in the voting world
+            broadcaster.toServer("all_eligible_left", placeholders);
+            cancelVote(session, "all_eligible_left", placeholders, true);
+            return;
+        }
+
+        // If all remaining eligible players have now voted
+        if (session.hasEveryoneVoted()) {
+             endVote(session);
+        } else {
+            checkEarlyDecision(session); // A NO voter leaving can settle a pass
         }
     }
-    
-    public void handlePlayerChangedWorld(Player player, World fromWorld) {
-        if (!voteActive || worldForVote == null || !fromWorld.equals(worldForVote)) {
-            return; // Player was not in the vote world or no vote active
+
+    // Ends the vote once the remaining votes cannot change its outcome, right away or after the grace window.
+    // The grace window re-checks before ending, since a YES voter leaving can unsettle a pass.
+    private void checkEarlyDecision(VoteSession session) {
+        PluginSettings settings = plugin.getSettings();
+        if (!settings.isEarlyDecisionEnabled() || session.isNetworked() || session.hasGraceTask() || !session.isDecided()) {
+            return;
         }
-        // Treat as if they quit the vote world for eligibility and vote counting
-        handlePlayerQuit(player); 
+        int graceSeconds = settings.getEarlyDecisionGraceSeconds();
+        if (graceSeconds == 0) {
+            endVote(session);
+            return;
+        }
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("world", session.getWorld().getName());
+        placeholders.put("time", String.valueOf(graceSeconds));
+        broadcaster.toWorld(session, "vote_settled", placeholders);
+        session.setGraceTask(platform.runTaskLater(() -> {
+            session.setGraceTask(null);
+            if (activeSessions.get(session.getWorldId()) == session && session.isDecided()) {
+                endVote(session);
+            }
+        }, graceSeconds * 20L));
     }
 
 
-    private void endVote() {
-        if (!voteActive || worldForVote == null) return;
+    private void endVote(VoteSession session) {
+        long start = System.nanoTime();
+        try {
+            if (activeSessions.get(session.getWorldId()) != session) return;
+            if (session.isNetworked()) {
+                plugin.getLogger().warning("No result from the vote coordinator for " + session.getWorld().getName()
+                        + ", deciding on this server's votes only.");
+            }
 
-        clearVoteEndTask();
+            // Live counters: votes of players who left were already taken off when they quit or changed world
+            int yesVotes = session.getYesVotes();
+            int noVotes = session.getNoVotes();
+            int currentEligibleCount = session.getEligibleCount();
 
-        // Recalculate eligible voters who are still online in the correct world AT THE END
-        Set<UUID> finalEligibleVoters = eligibleVoters.stream()
-            .map(Bukkit::getPlayer)
-            .filter(p -> p != null && p.isOnline() && p.getWorld().equals(worldForVote))
-            .map(Player::getUniqueId)
-            .collect(Collectors.toSet());
-        
-        int yesVotes = 0;
-        int noVotes = 0;
-        // Count votes only from those who are still eligible and online
-        for (Map.Entry<UUID, Boolean> entry : playerVotes.entrySet()) {
-            if (finalEligibleVoters.contains(entry.getKey())) {
-                if (entry.getValue()) yesVotes++;
-                else noVotes++;
+            boolean passed = false;
+            if (currentEligibleCount > 0) {
+                double yesPercentage = (double) yesVotes / currentEligibleCount;
+                if (yesVotes > 0 && yesPercentage >= session.getRequiredYesPercentage()) { // Use >= for percentage
+                    passed = true;
+                }
             }
+            // Edge case: if required_yes_percentage is 0 and there's 1 yes vote with 0 eligible (e.g. all left), it could pass.
+            // The current logic (currentEligibleCount > 0) handles this well.
+
+            finishVote(session, passed, yesVotes, noVotes, currentEligibleCount);
+        } finally {
+            endVoteTimer.recordSince(start);
+        }
+    }
+
+    // Ends a network vote with the coordinator's decision, the totals are summed over every shard
+    public void applyNetworkResult(VoteSession session, boolean passed, int yesVotes, int noVotes, int eligibleVoters) {
+        long start = System.nanoTime();
+        try {
+            if (activeSessions.get(session.getWorldId()) != session) return;
+            finishVote(session, passed, yesVotes, noVotes, eligibleVoters);
+        } finally {
+            endVoteTimer.recordSince(start);
         }
+    }
 
-        int currentEligibleCount = finalEligibleVoters.size();
+    private void finishVote(VoteSession session, boolean passed, int yesVotes, int noVotes, int eligibleVoters) {
+        session.clearVoteEndTask();
+        World world = session.getWorld();
+        PluginSettings settings = plugin.getSettings();
 
         Map<String, String> resultPlaceholders = new HashMap<>();
         resultPlaceholders.put("yes_votes", String.valueOf(yesVotes));
         resultPlaceholders.put("no_votes", String.valueOf(noVotes));
-        resultPlaceholders.put("eligible_voters", String.valueOf(currentEligibleCount));
-        resultPlaceholders.put("world", worldForVote.getName());
+        resultPlaceholders.put("eligible_voters", String.valueOf(eligibleVoters));
+        resultPlaceholders.put("world", world.getName());
 
-        String resultMessage = plugin.getMessage("vote_finished", resultPlaceholders);
-        for (Player p : worldForVote.getPlayers()) {
-            p.sendMessage(resultMessage);
-        }
-
-
-        boolean passed = false;
-        if (currentEligibleCount > 0) {
-            double yesPercentage = (double) yesVotes / currentEligibleCount;
-            if (yesVotes > 0 && yesPercentage >= plugin.getRequiredYesPercentage()) { // Use >= for percentage
-                passed = true;
-            }
-        }
-        // Edge case: if required_yes_percentage is 0 and there's 1 yes vote with 0 eligible (e.g. all left), it could pass.
-        // The current logic (currentEligibleCount > 0) handles this well.
+        broadcaster.toWorld(session, "vote_finished", resultPlaceholders);
 
         if (passed) {
-            for (Player p : worldForVote.getPlayers()) {
-                p.sendMessage(plugin.getMessage("vote_passed", resultPlaceholders));
-            }
-            if (worldForVote.getEnvironment() == World.Environment.NORMAL) {
-                worldForVote.setTime(plugin.getDayStartTick());
+            broadcaster.toWorld(session, "vote_passed", resultPlaceholders);
+            if (world.getEnvironment() == World.Environment.NORMAL) {
+                world.setTime(settings.getDayStartTick());
             } else {
-                 for (Player p : worldForVote.getPlayers()) {
-                    p.sendMessage(plugin.getMessage("error_changing_time", resultPlaceholders));
-                }
+                broadcaster.toWorld(session, "error_changing_time", resultPlaceholders);
             }
         } else {
-             for (Player p : worldForVote.getPlayers()) {
-                p.sendMessage(plugin.getMessage("vote_failed", resultPlaceholders));
-            }
+            broadcaster.toWorld(session, "vote_failed", resultPlaceholders);
         }
 
-        resetVoteStateAfterOutcome(true); // true to mark attempt for this world's cycle
+        publishOutcome(session, passed ? VoteOutcome.PASSED : VoteOutcome.FAILED, null, null, yesVotes, noVotes, eligibleVoters);
+        resetVoteStateAfterOutcome(session, true); // true to mark attempt for this world's cycle
     }
 
-    public void cancelVote(String reason, boolean maintainAttemptCycle) {
-        if (!voteActive || worldForVote == null) return;
+    // Reason rendered from a message key, which outcome listeners get to group cancellations by
+    public void cancelVote(VoteSession session, String reasonKey, Map<String, String> reasonPlaceholders, boolean maintainAttemptCycle) {
+        cancelVote(session, plugin.getRawMessage(reasonKey, reasonPlaceholders), reasonKey, maintainAttemptCycle);
+    }
+
+    public void cancelVote(VoteSession session, String reason, boolean maintainAttemptCycle) {
+        cancelVote(session, reason, "custom", maintainAttemptCycle);
+    }
 
-        clearVoteEndTask();
+    private void cancelVote(VoteSession session, String reason, String reasonKey, boolean maintainAttemptCycle) {
+        if (session == null || activeSessions.get(session.getWorldId()) != session) return;
+
+        session.clearVoteEndTask();
+        World world = session.getWorld();
         Map<String, String> placeholders = new HashMap<>();
         placeholders.put("reason", reason);
-        placeholders.put("world", worldForVote.getName());
-        
-        String messageKey = "vote_cancelled_reason";
-        // Check if the reason matches specific raw message keys for more tailored output
-        if (reason.equals(plugin.getRawMessage("all_eligible_left", placeholders))) {
-            // Message already handled by handlePlayerQuit or similar
-        } else if (reason.equals(plugin.getRawMessage("vote_cancelled_plugin_disabled", placeholders))) {
-             messageKey = "vote_cancelled_plugin_disabled"; // Use the specific message without prefix from NightVote
-        }
-
+        placeholders.put("world", world.getName());
 
-        String cancelMessage = (messageKey.equals("vote_cancelled_plugin_disabled"))
-            ? plugin.getRawMessage(messageKey, placeholders) // Use raw if it's a special internal message
-            : plugin.getMessage(messageKey, placeholders);    // Use prefixed for general reasons
+        switch (reasonKey) {
+            case "all_eligible_left":
+                break; // Already announced server-wide by reevaluateAfterLeave, nobody eligible is left in the world
+            case "vote_cancelled_plugin_disabled":
+                broadcaster.toWorld(session, reasonKey, placeholders, false); // The specific message, unprefixed
+                break;
+            default:
+                broadcaster.toWorld(session, "vote_cancelled_reason", placeholders, true);
+                break;
+        }
 
+        publishOutcome(session, VoteOutcome.CANCELLED, reason, reasonKey);
 
-        for (Player p : worldForVote.getPlayers()) {
-            p.sendMessage(cancelMessage);
-        }
-        
-        resetVoteStateAfterOutcome(maintainAttemptCycle);
+        resetVoteStateAfterOutcome(session, maintainAttemptCycle);
         if (!maintainAttemptCycle) {
             // If explicitly told not to maintain the cycle (e.g. admin cancel), reset it for this world
-            resetVoteAttemptedThisCycleForWorld(worldForVote.getName());
+            resetVoteAttemptedThisCycleForWorld(world.getName());
         }
     }
 
-    private void clearVoteEndTask() {
-        if (voteEndTask != null) {
-            try {
-                voteEndTask.cancel();
-            } catch (IllegalStateException e) {
-                // Task may have already run or been cancelled
-            }
-            voteEndTask = null;
+    public void cancelAllVotes(String reasonKey, boolean maintainAttemptCycle) {
+        // Copy first, cancelVote removes sessions from the registry
+        for (VoteSession session : new ArrayList<>(activeSessions.values())) {
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("world", session.getWorld().getName());
+            cancelVote(session, reasonKey, placeholders, maintainAttemptCycle);
         }
     }
 
-    private void resetVoteStateAfterOutcome(boolean markAttemptForCycle) {
-        String previousVoteWorldName = (this.worldForVote != null) ? this.worldForVote.getName() : null;
-        
-        this.voteActive = false;
-        this.playerVotes.clear();
-        this.eligibleVoters.clear();
-        this.worldForVote = null; // Crucial: set worldForVote to null
-
-        if (previousVoteWorldName != null) {
-            if (markAttemptForCycle && plugin.attemptOncePerNightCycle()) {
-                // This is usually set at the start of the vote.
-                // Ensure it's set if an outcome (pass/fail/timeout) occurred.
-                setVoteAttemptedThisCycleForWorld(previousVoteWorldName, true);
-            }
-            // else if !markAttemptForCycle, the caller (e.g. cancel command) might reset it.
+    private void resetVoteStateAfterOutcome(VoteSession session, boolean markAttemptForCycle) {
+        activeSessions.remove(session.getWorldId(), session);
+        publishSessionViews();
+        plugin.getLogger().info("Vote in " + session.getWorld().getName() + " sent " + session.getMessagesSent()
+                + " messages (" + session.getBytesSent() + " bytes).");
+        session.clear();
+
+        if (markAttemptForCycle && plugin.getSettings().attemptOncePerNightCycle()) {
+            // This is usually set at the start of the vote.
+            // Ensure it's set if an outcome (pass/fail/timeout) occurred.
+            setVoteAttemptedThisCycleForWorld(session.getWorld().getName(), true);
         }
+        // else if !markAttemptForCycle, the caller (e.g. cancel command) might reset it.
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package night.votes.managers;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Lock-free hand-off of chat votes from async chat threads to the main thread.
+ * Any number of chat threads offer, the VoteDrainTask is the single consumer once per tick.
+ */
+public class VoteQueue {
+
+    private final Queue<QueuedVote> pending = new ConcurrentLinkedQueue<>();
+
+    public void submit(UUID playerId, SessionView session, boolean yes) {
+        pending.offer(new QueuedVote(playerId, session, yes));
+    }
+
+    // Moves everything queued so far into the batch, returns how many were moved
+    public int drainTo(List<QueuedVote> batch) {
+        int drained = 0;
+        QueuedVote vote;
+        while ((vote = pending.poll()) != null) {
+            batch.add(vote);
+            drained++;
+        }
+        return drained;
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    public static final class QueuedVote {
+        private final UUID playerId;
+        private final SessionView session; // Session the vote was cast for, as seen on the chat thread; holds its claim
+        private final boolean yes;
+
+        QueuedVote(UUID playerId, SessionView session, boolean yes) {
+            this.playerId = playerId;
+            this.session = session;
+            this.yes = yes;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public UUID getWorldId() {
+            return session.getWorldId();
+        }
+
+        public long getSessionId() {
+            return session.getSessionId();
+        }
+
+        // A vote dropped at drain time gives its claim back, so the player's next vote is not taken for a repeat
+        public void releaseClaim() {
+            session.release(playerId);
+        }
+
+        public boolean isYes() {
+            return yes;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package night.votes.managers;
+
+import night.votes.server.ScheduledTask;
+import org.bukkit.World;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * State of a single night vote running in one world.
+ * Sessions are owned by the VoteManager and keyed by world UID, so several worlds can vote at once.
+ */
+public class VoteSession {
+
+    private final long id;
+    private final World world;
+    private final UUID worldId;
+    private final boolean manual;
+    private final long startedAtMillis;
+    private final Map<UUID, Boolean> playerVotes = new HashMap<>(); // true for YES, false for NO
+    private final Set<UUID> eligibleVoters; // Only players still in the world; quit/world change handlers remove them
+    private int yesVotes = 0;
+    private int noVotes = 0;
+    private ScheduledTask voteEndTask;
+    private ScheduledTask graceTask; // Pending early decision, see VoteManager.checkEarlyDecision
+    private long endsAtMillis;
+    private long messagesSent = 0; // Broadcast fan-out of this vote, filled in by the Broadcaster
+    private long bytesSent = 0;
+    private boolean networked = false; // Decided by the network coordinator, not by this server
+    private double requiredYesPercentage; // Fixed when the vote starts, a config reload mid-vote does not move the bar
+    private final SessionView view; // Published to the async chat threads
+
+    VoteSession(long id, World world, boolean manual, Set<UUID> eligibleVoters) {
+        this(id, world, manual, eligibleVoters, System.currentTimeMillis());
+    }
+
+    VoteSession(long id, World world, boolean manual, Set<UUID> eligibleVoters, long startedAtMillis) {
+        this.id = id;
+        this.world = world;
+        this.worldId = world.getUID();
+        this.manual = manual;
+        this.eligibleVoters = eligibleVoters;
+        this.startedAtMillis = startedAtMillis;
+        this.view = new SessionView(id, worldId, eligibleVoters);
+    }
+
+    // Unique among the sessions of this VoteManager, tells a new vote in the same world from the last one
+    public long getId() {
+        return id;
+    }
+
+    public SessionView getView() {
+        return view;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public UUID getWorldId() {
+        return worldId;
+    }
+
+    public boolean isManual() {
+        return manual;
+    }
+
+    public long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    public boolean isNetworked() {
+        return networked;
+    }
+
+    void markNetworked() {
+        this.networked = true;
+    }
+
+    public double getRequiredYesPercentage() {
+        return requiredYesPercentage;
+    }
+
+    void setRequiredYesPercentage(double requiredYesPercentage) {
+        this.requiredYesPercentage = requiredYesPercentage;
+    }
+
+    public boolean hasVoted(UUID playerId) {
+        return playerVotes.containsKey(playerId);
+    }
+
+    public boolean isEligible(UUID playerId) {
+        return eligibleVoters.contains(playerId);
+    }
+
+    public Set<UUID> getEligibleVoterIds() {
+        return Collections.unmodifiableSet(eligibleVoters);
+    }
+
+    public int getEligibleCount() {
+        return eligibleVoters.size();
+    }
+
+    public int getVoteCount() {
+        return yesVotes + noVotes;
+    }
+
+    public int getYesVotes() {
+        return yesVotes;
+    }
+
+    public int getNoVotes() {
+        return noVotes;
+    }
+
+    // Every eligible player still in the world has voted
+    public boolean hasEveryoneVoted() {
+        return !eligibleVoters.isEmpty() && getVoteCount() >= eligibleVoters.size();
+    }
+
+    // The remaining eligible players can no longer change the outcome, assuming nobody else leaves:
+    // yes already meets the required share, or stays short of it even if everyone left votes yes
+    public boolean isDecided() {
+        int eligible = eligibleVoters.size();
+        if (eligible == 0) return false;
+        if (yesVotes > 0 && (double) yesVotes / eligible >= requiredYesPercentage) return true;
+        int maxYesVotes = eligible - noVotes;
+        return maxYesVotes <= 0 || (double) maxYesVotes / eligible < requiredYesPercentage;
+    }
+
+    // Returns false if the player is not eligible or already voted
+    boolean recordVote(UUID playerId, boolean yes) {
+        if (!eligibleVoters.contains(playerId) || playerVotes.putIfAbsent(playerId, yes) != null) {
+            return false;
+        }
+        if (yes) yesVotes++;
+        else noVotes++;
+        view.claim(playerId); // Already claimed when the vote came through chat
+        return true;
+    }
+
+    // Returns the removed vote, or null if the player had not voted
+    Boolean removeVote(UUID playerId) {
+        Boolean vote = playerVotes.remove(playerId);
+        if (vote != null) {
+            if (vote) yesVotes--;
+            else noVotes--;
+            view.release(playerId);
+        }
+        return vote;
+    }
+
+    boolean removeEligible(UUID playerId) {
+        return eligibleVoters.remove(playerId);
+    }
+
+    void clear() {
+        playerVotes.clear();
+        eligibleVoters.clear();
+        yesVotes = 0;
+        noVotes = 0;
+    }
+
+    public long getMillisRemaining() {
+        return Math.max(0L, endsAtMillis - System.currentTimeMillis());
+    }
+
+    public int getSecondsRemaining() {
+        long millis = endsAtMillis - System.currentTimeMillis();
+        return millis <= 0 ? 0 : (int) ((millis + 999) / 1000);
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    void recordBroadcast(int recipients, long bytes) {
+        messagesSent += recipients;
+        bytesSent += bytes;
+    }
+
+    Map<UUID, Boolean> getPlayerVotes() {
+        return Collections.unmodifiableMap(playerVotes);
+    }
+
+    void setEndsAtMillis(long endsAtMillis) {
+        this.endsAtMillis = endsAtMillis;
+    }
+
+    void setVoteEndTask(ScheduledTask voteEndTask) {
+        this.voteEndTask = voteEndTask;
+    }
+
+    boolean hasGraceTask() {
+        return graceTask != null;
+    }
+
+    void setGraceTask(ScheduledTask graceTask) {
+        this.graceTask = graceTask;
+    }
+
+    // Cancels the timer and any pending early decision
+    void clearVoteEndTask() {
+        if (voteEndTask != null) {
+            voteEndTask.cancel();
+            voteEndTask = null;
+        }
+        if (graceTask != null) {
+            graceTask.cancel();
+            graceTask = null;
+        }
+    }
+}
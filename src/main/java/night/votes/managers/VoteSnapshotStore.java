@@ -0,0 +1,146 @@
+package night.votes.managers;
+
+import night.votes.server.ServerPlatform;
+import org.bukkit.World;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves running votes (tally, eligible voters, remaining time) and the per-world cycle flags on disable,
+ * and restores them on the next enable, so reloads and rolling restarts neither lose a vote nor let an
+ * auto vote fire twice in the same night. Small binary file, written to a temp file and moved into place.
+ */
+public class VoteSnapshotStore {
+
+    private static final int FORMAT_VERSION = 2;
+
+    private final File file;
+    private final ServerPlatform platform;
+    private final Logger logger;
+
+    public VoteSnapshotStore(File file, ServerPlatform platform, Logger logger) {
+        this.file = file;
+        this.platform = platform;
+        this.logger = logger;
+    }
+
+    public void save(VoteManager voteManager) {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+
+                Set<String> attemptedWorlds = voteManager.getVoteAttemptedWorlds();
+                out.writeInt(attemptedWorlds.size());
+                for (String worldName : attemptedWorlds) {
+                    out.writeUTF(worldName);
+                }
+
+                out.writeInt(voteManager.getActiveSessions().size());
+                for (VoteSession session : voteManager.getActiveSessions()) {
+                    writeUuid(out, session.getWorldId());
+                    out.writeBoolean(session.isManual());
+                    out.writeLong(session.getStartedAtMillis());
+                    out.writeLong(session.getMillisRemaining());
+                    out.writeDouble(session.getRequiredYesPercentage());
+                    Set<UUID> eligible = session.getEligibleVoterIds();
+                    out.writeInt(eligible.size());
+                    for (UUID voterId : eligible) {
+                        writeUuid(out, voterId);
+                    }
+                    Map<UUID, Boolean> votes = session.getPlayerVotes();
+                    out.writeInt(votes.size());
+                    for (Map.Entry<UUID, Boolean> vote : votes.entrySet()) {
+                        writeUuid(out, vote.getKey());
+                        out.writeBoolean(vote.getValue());
+                    }
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not save vote snapshot", e);
+            temp.delete();
+        }
+    }
+
+    // Restores cycle flags always, votes only when resumeVotes is on and the snapshot is not older than maxAgeMillis.
+    // The file is consumed, a snapshot is never applied twice.
+    public void restore(VoteManager voteManager, boolean resumeVotes, long maxAgeMillis) {
+        if (!file.isFile()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                logger.warning("Ignoring vote snapshot with unknown format version " + version);
+                return;
+            }
+            long savedAt = in.readLong();
+
+            int attemptedCount = in.readInt();
+            for (int i = 0; i < attemptedCount; i++) {
+                voteManager.setVoteAttemptedThisCycleForWorld(in.readUTF(), true);
+            }
+
+            boolean fresh = System.currentTimeMillis() - savedAt <= maxAgeMillis;
+            int sessionCount = in.readInt();
+            for (int i = 0; i < sessionCount; i++) {
+                UUID worldId = readUuid(in);
+                boolean manual = in.readBoolean();
+                long startedAt = in.readLong();
+                long remainingMillis = in.readLong();
+                double requiredYesPercentage = in.readDouble();
+                Set<UUID> eligible = new HashSet<>();
+                int eligibleCount = in.readInt();
+                for (int j = 0; j < eligibleCount; j++) {
+                    eligible.add(readUuid(in));
+                }
+                Map<UUID, Boolean> votes = new HashMap<>();
+                int voteCount = in.readInt();
+                for (int j = 0; j < voteCount; j++) {
+                    votes.put(readUuid(in), in.readBoolean());
+                }
+
+                World world = platform.getWorld(worldId);
+                if (!resumeVotes || !fresh || world == null) {
+                    logger.info("Not resuming saved vote in world " + (world != null ? world.getName() : worldId)
+                            + (fresh ? "" : " (snapshot too old)"));
+                    continue;
+                }
+                voteManager.restoreSession(world, manual, startedAt, eligible, votes, remainingMillis, requiredYesPercentage);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read vote snapshot, starting fresh", e);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
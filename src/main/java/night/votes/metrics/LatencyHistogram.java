@@ -0,0 +1,123 @@
+package night.votes.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets from 1us to 50ms. Every bucket is a striped LongAdder,
+ * so the main thread and the async chat threads record without locks or contention.
+ * Reads are a best-effort snapshot, good enough for /nv stats and scraping.
+ */
+public class LatencyHistogram {
+
+    // Bucket upper bounds in nanoseconds, one extra overflow bucket catches everything slower
+    private static final long[] BOUNDS_NANOS = {
+            1_000L, 2_500L, 5_000L, 10_000L, 25_000L, 50_000L, 100_000L, 250_000L,
+            500_000L, 1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L
+    };
+
+    private final String name;
+    private final String help;
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0L);
+
+    LatencyHistogram(String name, String help) {
+        this.name = name;
+        this.help = help;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    // Elapsed time since a System.nanoTime() reading taken before the timed work
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(counts, sumNanos.sum(), maxNanos.get());
+    }
+
+    public static final class Snapshot {
+        private final long[] counts; // Per bucket, not cumulative; the last one is the overflow bucket
+        private final long count;
+        private final long sumNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long sumNanos, long maxNanos) {
+            this.counts = counts;
+            long total = 0;
+            for (long c : counts) total += c;
+            this.count = total; // From the buckets, so the cumulative counts always add up to it
+            this.sumNanos = sumNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSumNanos() {
+            return sumNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0L : sumNanos / count;
+        }
+
+        public int getBucketCount() {
+            return BOUNDS_NANOS.length;
+        }
+
+        public long getBucketBoundNanos(int bucket) {
+            return BOUNDS_NANOS[bucket];
+        }
+
+        // Observations at or below the bound of this bucket
+        public long getCumulativeCount(int bucket) {
+            long total = 0;
+            for (int i = 0; i <= bucket; i++) total += counts[i];
+            return total;
+        }
+
+        // Upper bound of the bucket holding the given quantile, or the max when it falls in the overflow bucket
+        public long getQuantileNanos(double quantile) {
+            if (count == 0) return 0L;
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(BOUNDS_NANOS[i], maxNanos);
+            }
+            return maxNanos;
+        }
+    }
+}
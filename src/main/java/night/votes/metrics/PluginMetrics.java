@@ -0,0 +1,135 @@
+package night.votes.metrics;
+
+import night.votes.history.VoteRecord;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Hot-path timers and counters of the plugin. Recording is lock-free (LongAdder based), so it is safe on the
+ * async chat threads and cheap enough for every tick. Read by /nv stats and the Prometheus exporter.
+ */
+public class PluginMetrics {
+
+    public static final String CHAT_HANDLER = "chat_handler";
+    public static final String NIGHT_CHECK = "night_check";
+    public static final String ADD_VOTE = "add_vote";
+    public static final String APPLY_VOTE_BATCH = "apply_vote_batch";
+    public static final String END_VOTE = "end_vote";
+    public static final String PLAYER_QUIT = "player_quit";
+    public static final String MESSAGE_RENDER = "message_render";
+
+    private final Map<String, LatencyHistogram> timers = new LinkedHashMap<>(); // Fixed after construction
+    private final List<Value> values = new CopyOnWriteArrayList<>();
+
+    private final LongAdder chatVotesQueued;
+    private final LongAdder votesPassed;
+    private final LongAdder votesFailed;
+    private final LongAdder votesCancelled;
+
+    public PluginMetrics() {
+        addTimer(CHAT_HANDLER, "Time spent in the async chat listener");
+        addTimer(NIGHT_CHECK, "Time spent in one night check run");
+        addTimer(ADD_VOTE, "Time spent applying a vote given by command or API");
+        addTimer(APPLY_VOTE_BATCH, "Time spent applying one tick's batch of queued chat votes");
+        addTimer(END_VOTE, "Time spent ending a vote, including broadcasts");
+        addTimer(PLAYER_QUIT, "Time spent handling a player quit");
+        addTimer(MESSAGE_RENDER, "Time spent rendering one message template");
+
+        this.chatVotesQueued = counter("chat_votes_queued", "Chat votes handed to the main thread");
+        this.votesPassed = counter("votes_passed", "Votes that skipped the night");
+        this.votesFailed = counter("votes_failed", "Votes that ended without enough yes votes");
+        this.votesCancelled = counter("votes_cancelled", "Votes that were cancelled");
+    }
+
+    private void addTimer(String name, String help) {
+        timers.put(name, new LatencyHistogram(name, help));
+    }
+
+    public LatencyHistogram timer(String name) {
+        LatencyHistogram timer = timers.get(name);
+        if (timer == null) {
+            throw new IllegalArgumentException("Unknown timer: " + name);
+        }
+        return timer;
+    }
+
+    public Map<String, LatencyHistogram> getTimers() {
+        return Collections.unmodifiableMap(timers);
+    }
+
+    public LongAdder counter(String name, String help) {
+        LongAdder adder = new LongAdder();
+        values.add(new Value(name, help, true, adder::sum));
+        return adder;
+    }
+
+    // A count kept elsewhere that only goes up, e.g. the broadcaster's totals
+    public void counter(String name, String help, LongSupplier supplier) {
+        values.add(new Value(name, help, true, supplier));
+    }
+
+    // Read on demand, e.g. the number of running votes
+    public void gauge(String name, String help, LongSupplier supplier) {
+        values.add(new Value(name, help, false, supplier));
+    }
+
+    public List<Value> getValues() {
+        return Collections.unmodifiableList(values);
+    }
+
+    public void recordChatVoteQueued() {
+        chatVotesQueued.increment();
+    }
+
+    // Registered as a VoteManager outcome listener
+    public void recordOutcome(VoteRecord record) {
+        switch (record.getOutcome()) {
+            case PASSED:
+                votesPassed.increment();
+                break;
+            case FAILED:
+                votesFailed.increment();
+                break;
+            case CANCELLED:
+                votesCancelled.increment();
+                break;
+        }
+    }
+
+    // A counter (only goes up) or gauge, read through its supplier
+    public static final class Value {
+        private final String name;
+        private final String help;
+        private final boolean counter;
+        private final LongSupplier supplier;
+
+        private Value(String name, String help, boolean counter, LongSupplier supplier) {
+            this.name = name;
+            this.help = help;
+            this.counter = counter;
+            this.supplier = supplier;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        public boolean isCounter() {
+            return counter;
+        }
+
+        public long get() {
+            return supplier.getAsLong();
+        }
+    }
+}
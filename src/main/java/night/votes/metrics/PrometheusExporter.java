@@ -0,0 +1,115 @@
+package night.votes.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves PluginMetrics in the Prometheus text format on http://127.0.0.1:<port>/metrics,
+ * using the JDK's built-in HTTP server on one daemon thread. Bound to loopback only.
+ */
+public class PrometheusExporter {
+
+    private static final String PREFIX = "nightvote_";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final PluginMetrics metrics;
+    private final int port;
+    private final Logger logger;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PrometheusExporter(PluginMetrics metrics, int port, Logger logger) {
+        this.metrics = metrics;
+        this.port = port;
+        this.logger = logger;
+    }
+
+    public boolean start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not start the metrics exporter on port " + port, e);
+            return false;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NightVote-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        logger.info("Metrics exporter listening on " + getAddress());
+        return true;
+    }
+
+    public String getAddress() {
+        return "http://127.0.0.1:" + port + "/metrics";
+    }
+
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render(metrics).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static String render(PluginMetrics metrics) {
+        StringBuilder out = new StringBuilder(4096);
+        for (LatencyHistogram timer : metrics.getTimers().values()) {
+            String name = PREFIX + timer.getName() + "_seconds";
+            LatencyHistogram.Snapshot snapshot = timer.snapshot();
+            out.append("# HELP ").append(name).append(' ').append(timer.getHelp()).append('\n');
+            out.append("# TYPE ").append(name).append(" histogram\n");
+            for (int i = 0; i < snapshot.getBucketCount(); i++) {
+                out.append(name).append("_bucket{le=\"").append(seconds(snapshot.getBucketBoundNanos(i))).append("\"} ")
+                        .append(snapshot.getCumulativeCount(i)).append('\n');
+            }
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(snapshot.getCount()).append('\n');
+            out.append(name).append("_sum ").append(seconds(snapshot.getSumNanos())).append('\n');
+            out.append(name).append("_count ").append(snapshot.getCount()).append('\n');
+        }
+        for (PluginMetrics.Value value : metrics.getValues()) {
+            String name = PREFIX + value.getName() + (value.isCounter() ? "_total" : "");
+            out.append("# HELP ").append(name).append(' ').append(value.getHelp()).append('\n');
+            out.append("# TYPE ").append(name).append(value.isCounter() ? " counter\n" : " gauge\n");
+            out.append(name).append(' ').append(value.get()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,79 @@
+package night.votes.network;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory transport between nodes in the same JVM, for tests and the simulator.
+ * Messages are delivered synchronously on the sender's thread.
+ */
+public class LoopbackTransport implements NetworkTransport {
+
+    private static final Hub SHARED_HUB = new Hub();
+
+    private final Hub hub;
+    private final boolean coordinator;
+    private Consumer<NetworkMessage> receiver;
+
+    // Joins the JVM-wide hub, used when config.yml selects the loopback transport
+    public LoopbackTransport(boolean coordinator) {
+        this(SHARED_HUB, coordinator);
+    }
+
+    public LoopbackTransport(Hub hub, boolean coordinator) {
+        this.hub = hub;
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    public void start(Consumer<NetworkMessage> receiver) throws IOException {
+        synchronized (hub) {
+            if (coordinator) {
+                if (hub.coordinator != null) {
+                    throw new IOException("The loopback network already has a coordinator");
+                }
+                hub.coordinator = receiver;
+            }
+            hub.shards.add(receiver);
+        }
+        this.receiver = receiver;
+    }
+
+    @Override
+    public void sendToCoordinator(NetworkMessage message) {
+        Consumer<NetworkMessage> target = hub.coordinator;
+        if (target != null) {
+            target.accept(message);
+        }
+    }
+
+    @Override
+    public void sendToShards(NetworkMessage message) {
+        if (!coordinator) {
+            throw new IllegalStateException("Only the coordinator sends to shards");
+        }
+        for (Consumer<NetworkMessage> shard : hub.shards) {
+            shard.accept(message);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (receiver == null) return;
+        synchronized (hub) {
+            hub.shards.remove(receiver);
+            if (hub.coordinator == receiver) {
+                hub.coordinator = null;
+            }
+        }
+        receiver = null;
+    }
+
+    // The nodes connected to one in-memory network
+    public static final class Hub {
+        private volatile Consumer<NetworkMessage> coordinator;
+        private final List<Consumer<NetworkMessage>> shards = new CopyOnWriteArrayList<>();
+    }
+}
@@ -0,0 +1,231 @@
+package night.votes.network;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One message between NightVote nodes. Shards send HELLO, START and TALLY to the coordinator,
+ * the coordinator sends OPEN and RESULT to every shard. Worlds are matched across nodes by name.
+ * Immutable, so the loopback transport hands the same instance to every node.
+ */
+public final class NetworkMessage {
+
+    public enum Type {
+        HELLO,  // First frame on a socket connection: node id and shared secret
+        START,  // A shard started a vote in a network world
+        OPEN,   // The coordinator opened a round, every shard starts voting
+        TALLY,  // A shard's counts for the rounds that changed this tick, or all of them as a heartbeat
+        RESULT  // The coordinator's decision for a round
+    }
+
+    private static final Type[] TYPES = Type.values();
+    private static final int MAX_TALLIES = 4096;
+
+    private final Type type;
+    private final String nodeId;
+    private final String secret;
+    private final String worldName;
+    private final long roundId;
+    private final boolean flag; // Manual for START and OPEN, passed for RESULT
+    private final int yesVotes;
+    private final int noVotes;
+    private final int eligibleVoters;
+    private final List<Tally> tallies;
+
+    private NetworkMessage(Type type, String nodeId, String secret, String worldName, long roundId, boolean flag,
+                           int yesVotes, int noVotes, int eligibleVoters, List<Tally> tallies) {
+        this.type = type;
+        this.nodeId = nodeId;
+        this.secret = secret;
+        this.worldName = worldName;
+        this.roundId = roundId;
+        this.flag = flag;
+        this.yesVotes = yesVotes;
+        this.noVotes = noVotes;
+        this.eligibleVoters = eligibleVoters;
+        this.tallies = tallies;
+    }
+
+    public static NetworkMessage hello(String nodeId, String secret) {
+        return new NetworkMessage(Type.HELLO, nodeId, secret, null, 0L, false, 0, 0, 0, Collections.emptyList());
+    }
+
+    public static NetworkMessage start(String nodeId, String worldName, boolean manual) {
+        return new NetworkMessage(Type.START, nodeId, null, worldName, 0L, manual, 0, 0, 0, Collections.emptyList());
+    }
+
+    public static NetworkMessage open(String worldName, long roundId, boolean manual) {
+        return new NetworkMessage(Type.OPEN, null, null, worldName, roundId, manual, 0, 0, 0, Collections.emptyList());
+    }
+
+    public static NetworkMessage tally(String nodeId, List<Tally> tallies) {
+        return new NetworkMessage(Type.TALLY, nodeId, null, null, 0L, false, 0, 0, 0, List.copyOf(tallies));
+    }
+
+    public static NetworkMessage result(String worldName, long roundId, boolean passed, int yesVotes, int noVotes, int eligibleVoters) {
+        return new NetworkMessage(Type.RESULT, null, null, worldName, roundId, passed, yesVotes, noVotes, eligibleVoters, Collections.emptyList());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public long getRoundId() {
+        return roundId;
+    }
+
+    public boolean isManual() {
+        return flag;
+    }
+
+    public boolean isPassed() {
+        return flag;
+    }
+
+    public int getYesVotes() {
+        return yesVotes;
+    }
+
+    public int getNoVotes() {
+        return noVotes;
+    }
+
+    public int getEligibleVoters() {
+        return eligibleVoters;
+    }
+
+    public List<Tally> getTallies() {
+        return tallies;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(type.ordinal());
+        switch (type) {
+            case HELLO:
+                out.writeUTF(nodeId);
+                out.writeUTF(secret);
+                break;
+            case START:
+                out.writeUTF(nodeId);
+                out.writeUTF(worldName);
+                out.writeBoolean(flag);
+                break;
+            case OPEN:
+                out.writeUTF(worldName);
+                out.writeLong(roundId);
+                out.writeBoolean(flag);
+                break;
+            case TALLY:
+                out.writeUTF(nodeId);
+                out.writeShort(tallies.size());
+                for (Tally tally : tallies) {
+                    out.writeUTF(tally.worldName);
+                    out.writeLong(tally.roundId);
+                    out.writeInt(tally.yesVotes);
+                    out.writeInt(tally.noVotes);
+                    out.writeInt(tally.eligibleVoters);
+                }
+                break;
+            case RESULT:
+                out.writeUTF(worldName);
+                out.writeLong(roundId);
+                out.writeBoolean(flag);
+                out.writeInt(yesVotes);
+                out.writeInt(noVotes);
+                out.writeInt(eligibleVoters);
+                break;
+        }
+    }
+
+    public static NetworkMessage read(DataInput in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= TYPES.length) {
+            throw new IOException("Unknown message type " + ordinal);
+        }
+        switch (TYPES[ordinal]) {
+            case HELLO:
+                return hello(in.readUTF(), in.readUTF());
+            case START:
+                return start(in.readUTF(), in.readUTF(), in.readBoolean());
+            case OPEN:
+                return open(in.readUTF(), in.readLong(), in.readBoolean());
+            case TALLY: {
+                String nodeId = in.readUTF();
+                int count = in.readUnsignedShort();
+                if (count > MAX_TALLIES) {
+                    throw new IOException("Too many tallies in one message: " + count);
+                }
+                List<Tally> tallies = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    tallies.add(new Tally(in.readUTF(), in.readLong(), in.readInt(), in.readInt(), in.readInt()));
+                }
+                return tally(nodeId, tallies);
+            }
+            default:
+                return result(in.readUTF(), in.readLong(), in.readBoolean(), in.readInt(), in.readInt(), in.readInt());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkMessage[" + type + (nodeId != null ? " from " + nodeId : "") + (worldName != null ? " " + worldName + "#" + roundId : "")
+                + (type == Type.TALLY ? " " + tallies.size() + " tallies" : "") + "]";
+    }
+
+    /**
+     * One shard's current counts for one round. Absolute rather than incremental,
+     * so a dropped or repeated message is corrected by the next one.
+     */
+    public static final class Tally {
+
+        private final String worldName;
+        private final long roundId;
+        private final int yesVotes;
+        private final int noVotes;
+        private final int eligibleVoters;
+
+        public Tally(String worldName, long roundId, int yesVotes, int noVotes, int eligibleVoters) {
+            this.worldName = worldName;
+            this.roundId = roundId;
+            this.yesVotes = yesVotes;
+            this.noVotes = noVotes;
+            this.eligibleVoters = eligibleVoters;
+        }
+
+        public String getWorldName() {
+            return worldName;
+        }
+
+        public long getRoundId() {
+            return roundId;
+        }
+
+        public int getYesVotes() {
+            return yesVotes;
+        }
+
+        public int getNoVotes() {
+            return noVotes;
+        }
+
+        public int getEligibleVoters() {
+            return eligibleVoters;
+        }
+    }
+}
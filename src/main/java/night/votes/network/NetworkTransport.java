@@ -0,0 +1,21 @@
+package night.votes.network;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Carries NetworkMessages between the coordinator and the shards. Implementations may call the receiver
+ * on any thread; NetworkVoteSync queues what arrives and handles it on the main thread.
+ */
+public interface NetworkTransport {
+
+    void start(Consumer<NetworkMessage> receiver) throws IOException;
+
+    // On the coordinator itself the message goes straight to its own receiver
+    void sendToCoordinator(NetworkMessage message);
+
+    // Coordinator only; every shard receives it, the coordinator included
+    void sendToShards(NetworkMessage message);
+
+    void close();
+}
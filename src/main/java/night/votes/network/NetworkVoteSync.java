@@ -0,0 +1,230 @@
+package night.votes.network;
+
+import night.votes.config.PluginSettings;
+import night.votes.managers.VoteManager;
+import night.votes.managers.VoteSession;
+import night.votes.server.PluginContext;
+import org.bukkit.World;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Links this server's votes in the network worlds to the other shards. A vote started here asks the
+ * coordinator to open a round; when a round opens every shard starts its own vote in the world of that name.
+ * Local sessions keep collecting votes as usual, their counts are sent at most once per tick for the rounds
+ * that changed, and the coordinator's result ends them. On the coordinator node this also runs the VoteCoordinator.
+ * Messages are queued by the transport threads and handled in tick() on the main thread.
+ */
+public class NetworkVoteSync {
+
+    private static final int FULL_SYNC_INTERVAL_TICKS = 20; // Every open round is resent once a second, doubling as a heartbeat
+
+    private final PluginContext plugin;
+    private final VoteManager voteManager;
+    private final NetworkTransport transport;
+    private final String nodeId;
+    private final Set<String> networkWorlds; // Lower-case world names
+    private final VoteCoordinator coordinator; // Null on shards
+    private final Queue<NetworkMessage> inbox = new ConcurrentLinkedQueue<>();
+    private final Map<String, Binding> bindings = new HashMap<>(); // Lower-case world name to this shard's part in the round
+    private final List<NetworkMessage.Tally> pendingTallies = new ArrayList<>(); // Reused between ticks
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private long ticks = 0;
+
+    public NetworkVoteSync(PluginContext plugin, VoteManager voteManager, NetworkTransport transport) {
+        PluginSettings settings = plugin.getSettings();
+        this.plugin = plugin;
+        this.voteManager = voteManager;
+        this.transport = transport;
+        this.nodeId = settings.getNetworkNodeId();
+        Set<String> worlds = new HashSet<>();
+        for (String name : settings.getNetworkWorldNames()) {
+            worlds.add(name.toLowerCase(Locale.ROOT));
+        }
+        this.networkWorlds = worlds;
+        this.coordinator = settings.isNetworkCoordinator() ? new VoteCoordinator(plugin, transport) : null;
+    }
+
+    public void start() throws IOException {
+        transport.start(message -> {
+            messagesReceived.increment();
+            inbox.add(message);
+        });
+    }
+
+    public void close() {
+        transport.close();
+    }
+
+    public boolean isCoordinator() {
+        return coordinator != null;
+    }
+
+    public boolean isNetworked(World world) {
+        return world != null && networkWorlds.contains(world.getName().toLowerCase(Locale.ROOT));
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    // Called by VoteManager for every new session in a network world
+    public void onVoteStarted(VoteSession session) {
+        String key = key(session.getWorld().getName());
+        Binding binding = bindings.get(key);
+        if (binding != null && binding.startingFromOpen) {
+            binding.session = session; // Started because a round opened, already bound to it
+            return;
+        }
+        bindings.put(key, new Binding(session.getWorld().getName(), 0L, session));
+        send(NetworkMessage.start(nodeId, session.getWorld().getName(), session.isManual()));
+    }
+
+    // Once per tick on the main thread
+    public void tick() {
+        NetworkMessage message;
+        while ((message = inbox.poll()) != null) {
+            switch (message.getType()) {
+                case START:
+                    if (coordinator != null) coordinator.handleStart(message);
+                    break;
+                case TALLY:
+                    if (coordinator != null) coordinator.handleTally(message);
+                    break;
+                case OPEN:
+                    handleOpen(message);
+                    break;
+                case RESULT:
+                    handleResult(message);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (coordinator != null) {
+            coordinator.tick();
+        }
+        sendTallies();
+    }
+
+    private void handleOpen(NetworkMessage message) {
+        String key = key(message.getWorldName());
+        Binding binding = bindings.get(key);
+        if (binding != null && binding.roundId == message.getRoundId()) {
+            return;
+        }
+        if (binding != null && binding.roundId == 0L && isActive(binding.session)) {
+            binding.roundId = message.getRoundId(); // The round our own START asked for, or one opened alongside it
+            binding.dirty = true;
+            return;
+        }
+        binding = new Binding(message.getWorldName(), message.getRoundId(), null);
+        bindings.put(key, binding);
+        World world = plugin.getPlatform().getWorld(message.getWorldName());
+        if (world != null && !voteManager.isVoteActive(world)) {
+            binding.startingFromOpen = true;
+            try {
+                voteManager.startVote(world, false, null); // Too few players here just means this shard reports zero
+            } finally {
+                binding.startingFromOpen = false;
+            }
+        }
+        binding.dirty = true; // Answer right away, even with zero, so the coordinator knows this shard is in
+    }
+
+    private void handleResult(NetworkMessage message) {
+        String key = key(message.getWorldName());
+        Binding binding = bindings.get(key);
+        if (binding != null && binding.roundId == message.getRoundId()) {
+            bindings.remove(key);
+            if (isActive(binding.session)) {
+                voteManager.applyNetworkResult(binding.session, message.isPassed(),
+                        message.getYesVotes(), message.getNoVotes(), message.getEligibleVoters());
+                return;
+            }
+        }
+        // No vote running here (nobody in the world, or it ended early), the world still follows the result
+        if (message.isPassed()) {
+            World world = plugin.getPlatform().getWorld(message.getWorldName());
+            if (world != null && world.getEnvironment() == World.Environment.NORMAL) {
+                world.setTime(plugin.getSettings().getDayStartTick());
+            }
+        }
+    }
+
+    // One message per tick at most, however many players voted
+    private void sendTallies() {
+        ticks++;
+        boolean fullSync = ticks % FULL_SYNC_INTERVAL_TICKS == 0;
+        for (Iterator<Binding> iterator = bindings.values().iterator(); iterator.hasNext(); ) {
+            Binding binding = iterator.next();
+            boolean active = isActive(binding.session);
+            if (binding.roundId == 0L) {
+                if (!active) iterator.remove(); // Ended before the coordinator answered
+                continue;
+            }
+            // A session that ended here (cancelled, everyone left) counts as zero until the result arrives
+            int yes = active ? binding.session.getYesVotes() : 0;
+            int no = active ? binding.session.getNoVotes() : 0;
+            int eligible = active ? binding.session.getEligibleCount() : 0;
+            if (fullSync || binding.dirty || yes != binding.sentYes || no != binding.sentNo || eligible != binding.sentEligible) {
+                pendingTallies.add(new NetworkMessage.Tally(binding.worldName, binding.roundId, yes, no, eligible));
+                binding.sentYes = yes;
+                binding.sentNo = no;
+                binding.sentEligible = eligible;
+                binding.dirty = false;
+            }
+        }
+        if (!pendingTallies.isEmpty() || fullSync) {
+            send(NetworkMessage.tally(nodeId, pendingTallies));
+            pendingTallies.clear();
+        }
+    }
+
+    private boolean isActive(VoteSession session) {
+        return session != null && voteManager.getSession(session.getWorldId()) == session;
+    }
+
+    private void send(NetworkMessage message) {
+        messagesSent.increment();
+        transport.sendToCoordinator(message);
+    }
+
+    private static String key(String worldName) {
+        return worldName.toLowerCase(Locale.ROOT);
+    }
+
+    // This shard's part in one round; roundId is 0 until the coordinator opens it
+    private static final class Binding {
+        private final String worldName;
+        private long roundId;
+        private VoteSession session; // Null when this shard has no vote of its own in the round
+        private boolean startingFromOpen;
+        private boolean dirty;
+        private int sentYes = -1;
+        private int sentNo = -1;
+        private int sentEligible = -1;
+
+        Binding(String worldName, long roundId, VoteSession session) {
+            this.worldName = worldName;
+            this.roundId = roundId;
+            this.session = session;
+        }
+    }
+}
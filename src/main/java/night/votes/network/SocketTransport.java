@@ -0,0 +1,298 @@
+package night.votes.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * TCP transport. The coordinator listens on host:port and every shard keeps one connection to it,
+ * reconnecting if it drops. Frames are a length-prefixed NetworkMessage; the first frame from a shard
+ * is a HELLO carrying the shared secret. Each connection has its own reader and writer thread,
+ * so a slow peer never blocks the main thread.
+ */
+public class SocketTransport implements NetworkTransport {
+
+    private static final int MAX_FRAME_BYTES = 1024 * 1024;
+    private static final int SEND_QUEUE_CAPACITY = 1024; // About a minute of tallies; a peer this far behind is dropped
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final long RECONNECT_DELAY_MILLIS = 5000L;
+
+    private final String nodeId;
+    private final String host;
+    private final int port;
+    private final boolean coordinator;
+    private final String secret;
+    private final Logger logger;
+    private volatile boolean running = false;
+    private Consumer<NetworkMessage> receiver;
+    private Thread acceptOrConnectThread;
+
+    // Coordinator side
+    private ServerSocket serverSocket;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    // Shard side
+    private volatile Connection connection;
+
+    public SocketTransport(String nodeId, String host, int port, boolean coordinator, String secret, Logger logger) {
+        this.nodeId = nodeId;
+        this.host = host;
+        this.port = port;
+        this.coordinator = coordinator;
+        this.secret = secret;
+        this.logger = logger;
+    }
+
+    @Override
+    public void start(Consumer<NetworkMessage> receiver) throws IOException {
+        this.receiver = receiver;
+        this.running = true;
+        if (coordinator) {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(host, port));
+            acceptOrConnectThread = daemon(this::acceptLoop, "NightVote-Network-Accept");
+            logger.info("Vote coordinator listening on " + host + ":" + port);
+        } else {
+            acceptOrConnectThread = daemon(this::connectLoop, "NightVote-Network-Connect");
+        }
+        acceptOrConnectThread.start();
+    }
+
+    @Override
+    public void sendToCoordinator(NetworkMessage message) {
+        if (coordinator) {
+            receiver.accept(message);
+            return;
+        }
+        Connection current = connection;
+        if (current != null) {
+            current.send(encode(message));
+        }
+    }
+
+    @Override
+    public void sendToShards(NetworkMessage message) {
+        if (!coordinator) {
+            throw new IllegalStateException("Only the coordinator sends to shards");
+        }
+        receiver.accept(message);
+        if (connections.isEmpty()) return;
+        byte[] frame = encode(message); // Encoded once for every connection
+        for (Connection shard : connections) {
+            shard.send(frame);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        closeQuietly(serverSocket);
+        for (Connection shard : connections) {
+            shard.close();
+        }
+        connections.clear();
+        Connection current = connection;
+        if (current != null) {
+            current.close();
+        }
+        if (acceptOrConnectThread != null) {
+            acceptOrConnectThread.interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (running) logger.log(Level.WARNING, "Vote coordinator stopped accepting shards", e);
+                return;
+            }
+            daemon(() -> serveShard(socket), "NightVote-Network-Shard").start();
+        }
+    }
+
+    private void serveShard(Socket socket) {
+        Connection shard;
+        try {
+            shard = new Connection(socket);
+        } catch (IOException e) {
+            closeQuietly(socket);
+            return;
+        }
+        String remote = socket.getRemoteSocketAddress().toString();
+        try {
+            NetworkMessage hello = shard.read();
+            if (hello.getType() != NetworkMessage.Type.HELLO || !secretMatches(hello.getSecret())) {
+                logger.warning("Rejected a vote network connection from " + remote + " (wrong or missing secret)");
+                return;
+            }
+            logger.info("Shard " + hello.getNodeId() + " connected from " + remote);
+            connections.add(shard);
+            shard.readLoop(message -> {
+                // Shards only report; OPEN and RESULT come from the coordinator alone
+                if (message.getType() == NetworkMessage.Type.START || message.getType() == NetworkMessage.Type.TALLY) {
+                    receiver.accept(message);
+                }
+            });
+            logger.info("Shard " + hello.getNodeId() + " disconnected");
+        } catch (IOException e) {
+            if (running) logger.fine("Shard connection from " + remote + " closed: " + e.getMessage());
+        } finally {
+            connections.remove(shard);
+            shard.close();
+        }
+    }
+
+    private void connectLoop() {
+        boolean warned = false;
+        while (running) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                Connection current = new Connection(socket);
+                current.send(encode(NetworkMessage.hello(nodeId, secret)));
+                connection = current;
+                logger.info("Connected to the vote coordinator at " + host + ":" + port);
+                warned = false;
+                try {
+                    current.readLoop(receiver);
+                } finally {
+                    connection = null;
+                    current.close();
+                }
+                if (running) logger.warning("Lost the connection to the vote coordinator, reconnecting");
+            } catch (IOException e) {
+                closeQuietly(socket);
+                if (running && !warned) { // Once per outage, not every retry
+                    logger.warning("Could not reach the vote coordinator at " + host + ":" + port + ": " + e.getMessage());
+                    warned = true;
+                }
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Constant time, the secret is the only thing keeping strangers out of the vote
+    private boolean secretMatches(String offered) {
+        return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                (offered != null ? offered : "").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] encode(NetworkMessage message) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        try {
+            message.write(new DataOutputStream(buffer));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by an in-memory stream
+        }
+        return buffer.toByteArray();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // Already closed or broken
+        }
+    }
+
+    // One socket with a writer thread draining a bounded queue of encoded frames
+    private final class Connection {
+
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final BlockingQueue<byte[]> outbox = new ArrayBlockingQueue<>(SEND_QUEUE_CAPACITY);
+        private final Thread writerThread;
+        private volatile boolean open = true;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true); // Small frames, one per tick
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.writerThread = daemon(this::writeLoop, "NightVote-Network-Writer");
+            this.writerThread.start();
+        }
+
+        void send(byte[] frame) {
+            if (open && !outbox.offer(frame)) {
+                logger.warning("Vote network peer " + socket.getRemoteSocketAddress() + " is not keeping up, disconnecting it");
+                close();
+            }
+        }
+
+        NetworkMessage read() throws IOException {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_FRAME_BYTES) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            return NetworkMessage.read(new DataInputStream(new ByteArrayInputStream(frame)));
+        }
+
+        void readLoop(Consumer<NetworkMessage> target) throws IOException {
+            try {
+                while (open) {
+                    target.accept(read());
+                }
+            } catch (EOFException | SocketException e) {
+                // Peer closed the connection
+            }
+        }
+
+        private void writeLoop() {
+            try {
+                while (open) {
+                    byte[] frame = outbox.take();
+                    out.writeInt(frame.length);
+                    out.write(frame);
+                    if (outbox.isEmpty()) out.flush();
+                }
+            } catch (InterruptedException e) {
+                // Closed
+            } catch (IOException e) {
+                close(); // The reader sees the closed socket and ends the connection
+            }
+        }
+
+        void close() {
+            open = false;
+            writerThread.interrupt();
+            closeQuietly(socket);
+        }
+    }
+}
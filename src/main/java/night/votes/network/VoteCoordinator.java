@@ -0,0 +1,119 @@
+package night.votes.network;
+
+import night.votes.config.PluginSettings;
+import night.votes.server.PluginContext;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decides network votes on the coordinator node. One round per world name is open at a time;
+ * it collects the latest tally from every shard and ends on the vote timer, or early once every
+ * live shard has reported and all their eligible players have voted. Main thread only.
+ */
+class VoteCoordinator {
+
+    private static final long SHARD_TIMEOUT_TICKS = 100L; // Shards heartbeat every 20 ticks
+
+    private final PluginContext plugin;
+    private final NetworkTransport transport;
+    private final Map<String, Round> rounds = new HashMap<>(); // Keyed by lower-case world name
+    private final Map<String, Long> shardLastSeen = new HashMap<>(); // Node id to the tick of its last tally
+    private long currentTick = 0;
+    private long nextRoundId = System.currentTimeMillis(); // Round ids stay unique across coordinator restarts
+
+    VoteCoordinator(PluginContext plugin, NetworkTransport transport) {
+        this.plugin = plugin;
+        this.transport = transport;
+    }
+
+    int getOpenRoundCount() {
+        return rounds.size();
+    }
+
+    void handleStart(NetworkMessage message) {
+        String key = message.getWorldName().toLowerCase(Locale.ROOT);
+        Round open = rounds.get(key);
+        if (open != null) {
+            // Another shard got there first. The sender may have missed that OPEN (it started late, restored a
+            // saved vote or reconnected), so it goes out again; shards already bound to the round ignore it.
+            transport.sendToShards(NetworkMessage.open(open.worldName, open.id, message.isManual()));
+            return;
+        }
+        long durationTicks = plugin.getSettings().getVoteDurationSeconds() * 20L;
+        Round round = new Round(nextRoundId++, message.getWorldName(), currentTick + durationTicks);
+        rounds.put(key, round);
+        plugin.getLogger().info("Network vote in " + round.worldName + " opened by " + message.getNodeId() + ".");
+        transport.sendToShards(NetworkMessage.open(round.worldName, round.id, message.isManual()));
+    }
+
+    void handleTally(NetworkMessage message) {
+        shardLastSeen.put(message.getNodeId(), currentTick);
+        for (NetworkMessage.Tally tally : message.getTallies()) {
+            Round round = rounds.get(tally.getWorldName().toLowerCase(Locale.ROOT));
+            if (round != null && round.id == tally.getRoundId()) {
+                round.tallies.put(message.getNodeId(), tally);
+            }
+        }
+    }
+
+    void tick() {
+        currentTick++;
+        if (rounds.isEmpty()) return;
+        shardLastSeen.values().removeIf(lastSeen -> currentTick - lastSeen > SHARD_TIMEOUT_TICKS);
+        for (Iterator<Round> iterator = rounds.values().iterator(); iterator.hasNext(); ) {
+            Round round = iterator.next();
+            if (currentTick >= round.deadlineTick || round.everyoneVoted()) {
+                iterator.remove();
+                decide(round);
+            }
+        }
+    }
+
+    // Same rule as a local vote, applied to the sums over all shards
+    private void decide(Round round) {
+        int yesVotes = 0;
+        int noVotes = 0;
+        int eligibleVoters = 0;
+        for (NetworkMessage.Tally tally : round.tallies.values()) {
+            yesVotes += tally.getYesVotes();
+            noVotes += tally.getNoVotes();
+            eligibleVoters += tally.getEligibleVoters();
+        }
+        PluginSettings settings = plugin.getSettings();
+        boolean passed = eligibleVoters > 0 && yesVotes > 0
+                && (double) yesVotes / eligibleVoters >= settings.getRequiredYesPercentage();
+        plugin.getLogger().info("Network vote in " + round.worldName + " " + (passed ? "passed" : "failed") + ": " + yesVotes
+                + " yes, " + noVotes + " no of " + eligibleVoters + " eligible on " + round.tallies.size() + " shards.");
+        transport.sendToShards(NetworkMessage.result(round.worldName, round.id, passed, yesVotes, noVotes, eligibleVoters));
+    }
+
+    private final class Round {
+        private final long id;
+        private final String worldName;
+        private final long deadlineTick;
+        private final Map<String, NetworkMessage.Tally> tallies = new HashMap<>(); // Latest per node id
+
+        Round(long id, String worldName, long deadlineTick) {
+            this.id = id;
+            this.worldName = worldName;
+            this.deadlineTick = deadlineTick;
+        }
+
+        // Every shard heard from recently has answered this round, and nobody eligible is left to vote
+        boolean everyoneVoted() {
+            if (!tallies.keySet().containsAll(shardLastSeen.keySet())) {
+                return false;
+            }
+            int votes = 0;
+            int eligible = 0;
+            for (NetworkMessage.Tally tally : tallies.values()) {
+                votes += tally.getYesVotes() + tally.getNoVotes();
+                eligible += tally.getEligibleVoters();
+            }
+            return eligible > 0 && votes >= eligible;
+        }
+    }
+}
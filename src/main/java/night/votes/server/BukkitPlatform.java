@@ -0,0 +1,106 @@
+package night.votes.server;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Collection;
+import java.util.UUID;
+
+// ServerPlatform backed by the running Bukkit server and scheduler
+public class BukkitPlatform implements ServerPlatform {
+
+    private final Plugin plugin;
+    private final PresenceIndex presence;
+
+    public BukkitPlatform(Plugin plugin, PresenceIndex presence) {
+        this.plugin = plugin;
+        this.presence = presence;
+    }
+
+    @Override
+    public Player getPlayer(UUID playerId) {
+        return Bukkit.getPlayer(playerId);
+    }
+
+    @Override
+    public Collection<? extends Player> getOnlinePlayers() {
+        return Bukkit.getOnlinePlayers();
+    }
+
+    @Override
+    public Collection<? extends Player> getPlayers(World world) {
+        return presence.getPlayers(world); // No copy, unlike world.getPlayers()
+    }
+
+    @Override
+    public int getPlayerCount(World world) {
+        return presence.getPlayerCount(world);
+    }
+
+    @Override
+    public boolean canVote(Player player) {
+        return presence.canVote(player);
+    }
+
+    @Override
+    public World getWorld(String name) {
+        return Bukkit.getWorld(name);
+    }
+
+    @Override
+    public World getWorld(UUID worldId) {
+        return Bukkit.getWorld(worldId);
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Bukkit.isPrimaryThread();
+    }
+
+    @Override
+    public ScheduledTask runTask(Runnable task) {
+        return wrap(runnable(task).runTask(plugin));
+    }
+
+    @Override
+    public ScheduledTask runTaskLater(Runnable task, long delayTicks) {
+        return wrap(runnable(task).runTaskLater(plugin, delayTicks));
+    }
+
+    @Override
+    public ScheduledTask runTaskTimer(Runnable task, long delayTicks, long periodTicks) {
+        return wrap(runnable(task).runTaskTimer(plugin, delayTicks, periodTicks));
+    }
+
+    @Override
+    public ScheduledTask runForPlayer(Player player, Runnable task, long delayTicks) {
+        return runTaskLater(() -> {
+            if (player.isOnline()) {
+                task.run();
+            }
+        }, delayTicks);
+    }
+
+    private static BukkitRunnable runnable(Runnable task) {
+        return new BukkitRunnable() {
+            @Override
+            public void run() {
+                task.run();
+            }
+        };
+    }
+
+    private static ScheduledTask wrap(BukkitTask bukkitTask) {
+        return () -> {
+            try {
+                bukkitTask.cancel();
+            } catch (IllegalStateException e) {
+                // Task may have already run or been cancelled
+            }
+        };
+    }
+}
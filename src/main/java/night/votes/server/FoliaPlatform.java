@@ -0,0 +1,151 @@
+package night.votes.server;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * ServerPlatform for Folia's region-threaded servers. Main-thread work goes to the global region scheduler,
+ * per-player work to the player's entity scheduler. Folia's scheduler API is not part of the Spigot API
+ * NightVote compiles against, so it is looked up reflectively once, on enable.
+ */
+public class FoliaPlatform implements ServerPlatform {
+
+    private static final String REGIONIZED_SERVER_CLASS = "io.papermc.paper.threadedregions.RegionizedServer";
+    private static final String SCHEDULER_PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+
+    private final Plugin plugin;
+    private final PresenceIndex presence;
+    private final Object globalScheduler;
+    private final Method globalRun;
+    private final Method globalRunDelayed;
+    private final Method globalRunAtFixedRate;
+    private final Method entityGetScheduler;
+    private final Method entityRunDelayed;
+    private final Method taskCancel;
+    private final Method isGlobalTickThread;
+
+    public static boolean isFolia() {
+        try {
+            Class.forName(REGIONIZED_SERVER_CLASS);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // Throws IllegalStateException if the Folia scheduler API is not there
+    public FoliaPlatform(Plugin plugin, PresenceIndex presence) {
+        this.plugin = plugin;
+        this.presence = presence;
+        try {
+            Class<?> globalSchedulerClass = Class.forName(SCHEDULER_PACKAGE + "GlobalRegionScheduler");
+            Class<?> entitySchedulerClass = Class.forName(SCHEDULER_PACKAGE + "EntityScheduler");
+            Class<?> taskClass = Class.forName(SCHEDULER_PACKAGE + "ScheduledTask");
+            this.globalScheduler = Bukkit.class.getMethod("getGlobalRegionScheduler").invoke(null);
+            this.globalRun = globalSchedulerClass.getMethod("run", Plugin.class, Consumer.class);
+            this.globalRunDelayed = globalSchedulerClass.getMethod("runDelayed", Plugin.class, Consumer.class, long.class);
+            this.globalRunAtFixedRate = globalSchedulerClass.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+            this.entityGetScheduler = Entity.class.getMethod("getScheduler");
+            this.entityRunDelayed = entitySchedulerClass.getMethod("runDelayed", Plugin.class, Consumer.class, Runnable.class, long.class);
+            this.taskCancel = taskClass.getMethod("cancel");
+            this.isGlobalTickThread = Bukkit.class.getMethod("isGlobalTickThread");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Folia scheduler API not found", e);
+        }
+    }
+
+    @Override
+    public Player getPlayer(UUID playerId) {
+        return Bukkit.getPlayer(playerId);
+    }
+
+    @Override
+    public Collection<? extends Player> getOnlinePlayers() {
+        return Bukkit.getOnlinePlayers();
+    }
+
+    @Override
+    public Collection<? extends Player> getPlayers(World world) {
+        return presence.getPlayers(world); // No copy, unlike world.getPlayers()
+    }
+
+    @Override
+    public int getPlayerCount(World world) {
+        return presence.getPlayerCount(world);
+    }
+
+    @Override
+    public boolean canVote(Player player) {
+        return presence.canVote(player);
+    }
+
+    @Override
+    public World getWorld(String name) {
+        return Bukkit.getWorld(name);
+    }
+
+    @Override
+    public World getWorld(UUID worldId) {
+        return Bukkit.getWorld(worldId);
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return (Boolean) invoke(isGlobalTickThread, null);
+    }
+
+    @Override
+    public ScheduledTask runTask(Runnable task) {
+        return wrap(invoke(globalRun, globalScheduler, plugin, consumer(task)));
+    }
+
+    @Override
+    public ScheduledTask runTaskLater(Runnable task, long delayTicks) {
+        return wrap(invoke(globalRunDelayed, globalScheduler, plugin, consumer(task), Math.max(1L, delayTicks)));
+    }
+
+    @Override
+    public ScheduledTask runTaskTimer(Runnable task, long delayTicks, long periodTicks) {
+        return wrap(invoke(globalRunAtFixedRate, globalScheduler, plugin, consumer(task), Math.max(1L, delayTicks), Math.max(1L, periodTicks)));
+    }
+
+    @Override
+    public ScheduledTask runForPlayer(Player player, Runnable task, long delayTicks) {
+        Object entityScheduler = invoke(entityGetScheduler, player);
+        // Null result or a retired callback: the player left before it ran, nothing to do either way
+        return wrap(invoke(entityRunDelayed, entityScheduler, plugin, consumer(task), null, Math.max(1L, delayTicks)));
+    }
+
+    private static Consumer<Object> consumer(Runnable task) {
+        return foliaTask -> task.run();
+    }
+
+    private ScheduledTask wrap(Object foliaTask) {
+        if (foliaTask == null) {
+            return () -> { };
+        }
+        return () -> invoke(taskCancel, foliaTask); // No-op on Folia's side if it already ran
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package night.votes.server;
+
+import night.votes.config.PluginSettings;
+import night.votes.managers.MessageManager;
+import night.votes.metrics.PluginMetrics;
+import night.votes.trace.TraceRecorder;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * What the vote managers need from the plugin. NightVote implements it; keeping the managers on this
+ * interface instead of the JavaPlugin lets them run outside a server, e.g. in the load simulator.
+ */
+public interface PluginContext {
+
+    PluginSettings getSettings();
+
+    FileConfiguration getConfig();
+
+    File getDataFolder();
+
+    Logger getLogger();
+
+    ServerPlatform getPlatform();
+
+    PluginMetrics getMetrics();
+
+    MessageManager getMessageManager();
+
+    TraceRecorder getTraceRecorder(); // Null unless a trace is being recorded
+
+    String getMessage(CommandSender recipient, String key, Map<String, String> placeholders);
+
+    String getRawMessage(String key, Map<String, String> placeholders);
+}
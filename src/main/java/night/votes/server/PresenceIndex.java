@@ -0,0 +1,106 @@
+package night.votes.server;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which players are in which world, kept up to date by PresenceListener instead of asking
+ * world.getPlayers() for a fresh copy each time, plus a cached result of the vote permission check.
+ * Concurrent, since join, quit and world change events fire on region threads on Folia and the
+ * permission bit is read by the async chat threads.
+ */
+public class PresenceIndex {
+
+    public static final String VOTE_PERMISSION = "nightvote.vote";
+    // Bukkit has no permission change event, so a cached bit is re-checked at least this often
+    private static final long PERMISSION_TTL_NANOS = 5_000_000_000L;
+
+    private final Map<UUID, Map<UUID, Player>> playersByWorld = new ConcurrentHashMap<>();
+    private final Map<UUID, PermissionBit> votePermissions = new ConcurrentHashMap<>();
+
+    // Fills the index from the players already online, e.g. after /reload
+    public void seed(Collection<? extends Player> onlinePlayers) {
+        playersByWorld.clear();
+        votePermissions.clear();
+        for (Player player : onlinePlayers) {
+            add(player, player.getWorld());
+        }
+    }
+
+    public void join(Player player) {
+        votePermissions.remove(player.getUniqueId());
+        add(player, player.getWorld());
+    }
+
+    public void quit(Player player) {
+        votePermissions.remove(player.getUniqueId());
+        remove(player, player.getWorld());
+    }
+
+    public void changeWorld(Player player, World from) {
+        remove(player, from);
+        add(player, player.getWorld());
+        votePermissions.remove(player.getUniqueId()); // Permission plugins may grant per world
+    }
+
+    public void unloadWorld(World world) {
+        playersByWorld.remove(world.getUID());
+    }
+
+    // Live, read-only view; iterating it copies nothing and sees concurrent changes weakly
+    public Collection<Player> getPlayers(World world) {
+        Map<UUID, Player> players = playersByWorld.get(world.getUID());
+        return players != null ? Collections.unmodifiableCollection(players.values()) : Collections.emptyList();
+    }
+
+    public int getPlayerCount(World world) {
+        Map<UUID, Player> players = playersByWorld.get(world.getUID());
+        return players != null ? players.size() : 0;
+    }
+
+    // Cached hasPermission(nightvote.vote), safe on any thread
+    public boolean canVote(Player player) {
+        long now = System.nanoTime();
+        PermissionBit bit = votePermissions.get(player.getUniqueId());
+        if (bit == null || now - bit.checkedAtNanos > PERMISSION_TTL_NANOS) {
+            bit = new PermissionBit(player.hasPermission(VOTE_PERMISSION), now);
+            votePermissions.put(player.getUniqueId(), bit);
+        }
+        return bit.allowed;
+    }
+
+    public void invalidatePermission(UUID playerId) {
+        votePermissions.remove(playerId);
+    }
+
+    public void invalidatePermissions() {
+        votePermissions.clear();
+    }
+
+    private void add(Player player, World world) {
+        playersByWorld.computeIfAbsent(world.getUID(), id -> new ConcurrentHashMap<>()).put(player.getUniqueId(), player);
+    }
+
+    private void remove(Player player, World world) {
+        Map<UUID, Player> players = playersByWorld.get(world.getUID());
+        if (players != null) {
+            players.remove(player.getUniqueId());
+        }
+    }
+
+    private static final class PermissionBit {
+        private final boolean allowed;
+        private final long checkedAtNanos;
+
+        PermissionBit(boolean allowed, long checkedAtNanos) {
+            this.allowed = allowed;
+            this.checkedAtNanos = checkedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package night.votes.server;
+
+// Handle of a task scheduled through ServerPlatform
+public interface ScheduledTask {
+
+    // No-op if the task already ran or was cancelled
+    void cancel();
+}
@@ -0,0 +1,50 @@
+package night.votes.server;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * The server calls the vote code depends on: player lookups and scheduling.
+ * BukkitPlatform is the live implementation, FoliaPlatform replaces it on region-threaded servers,
+ * and the load simulator supplies its own with a virtual tick clock.
+ *
+ * "Main thread" below is the Bukkit main thread, or the global region thread on Folia. It owns world time
+ * and all vote bookkeeping, so VoteManager never sees two threads at once.
+ */
+public interface ServerPlatform {
+
+    Player getPlayer(UUID playerId); // Null when offline
+
+    Collection<? extends Player> getOnlinePlayers();
+
+    // Read-only and possibly live, copy it before changing anything it could reflect
+    Collection<? extends Player> getPlayers(World world);
+
+    int getPlayerCount(World world);
+
+    // Whether the player may vote, possibly cached; safe on any thread
+    boolean canVote(Player player);
+
+    World getWorld(String name); // Null when not loaded
+
+    World getWorld(UUID worldId); // Null when not loaded
+
+    // True on the thread the tasks below run on
+    boolean isMainThread();
+
+    // Runs the task on the main thread on the next tick
+    ScheduledTask runTask(Runnable task);
+
+    // Runs the task on the main thread after delayTicks server ticks
+    ScheduledTask runTaskLater(Runnable task, long delayTicks);
+
+    // Runs the task on the main thread every periodTicks, starting after delayTicks
+    ScheduledTask runTaskTimer(Runnable task, long delayTicks, long periodTicks);
+
+    // Runs the task where the player's own state may be touched: their region thread on Folia,
+    // the main thread elsewhere. Dropped if the player is gone by then.
+    ScheduledTask runForPlayer(Player player, Runnable task, long delayTicks);
+}
@@ -0,0 +1,53 @@
+package night.votes.server;
+
+import org.bukkit.World;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Names of the loaded overworlds, sorted by lower-case name, kept up to date by PresenceListener so tab completion
+ * is a prefix range lookup instead of a pass over Bukkit.getWorlds() per keystroke. Concurrent, since Paper
+ * completes commands off the main thread and world events fire on region threads on Folia.
+ */
+public class WorldNameIndex {
+
+    private final NavigableMap<String, String> overworlds = new ConcurrentSkipListMap<>(); // Lower-case name -> name
+
+    // Fills the index from the worlds already loaded, e.g. after /reload
+    public void seed(Collection<World> worlds) {
+        overworlds.clear();
+        for (World world : worlds) {
+            loadWorld(world);
+        }
+    }
+
+    public void loadWorld(World world) {
+        if (world.getEnvironment() == World.Environment.NORMAL) {
+            overworlds.put(lowerCase(world.getName()), world.getName());
+        }
+    }
+
+    public void unloadWorld(World world) {
+        overworlds.remove(lowerCase(world.getName()));
+    }
+
+    // Adds the overworld names starting with prefix, in order; prefix is matched case-insensitively
+    public void complete(String prefix, List<String> out) {
+        out.addAll(startingWith(overworlds, prefix).values());
+    }
+
+    // Range view of the keys starting with prefix, for any map keyed by lower-case name
+    public static <V> NavigableMap<String, V> startingWith(NavigableMap<String, V> index, String prefix) {
+        if (prefix.isEmpty()) return index;
+        String lowerPrefix = lowerCase(prefix);
+        return index.subMap(lowerPrefix, true, lowerPrefix + Character.MAX_VALUE, false);
+    }
+
+    private static String lowerCase(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,109 @@
+package night.votes.tasks;
+
+import night.votes.NightVote;
+import night.votes.managers.VoteManager;
+import night.votes.managers.VoteSession;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Sends the "vote in progress" notice to players who join or enter a voting world, from one repeating task
+ * instead of a delayed task per player. Join and world change events hand notices over lock-free; the task
+ * keeps only the newest notice per player, sends at most MAX_NOTICES_PER_TICK a tick once their delay is up,
+ * and drops those whose vote has ended or whose player has moved on. A mass reconnect then costs one queue
+ * entry per player rather than hundreds of scheduled tasks.
+ */
+public class JoinNoticeTask implements Runnable {
+
+    private static final int MAX_NOTICES_PER_TICK = 50;
+
+    private final NightVote plugin;
+    private final VoteManager voteManager;
+    private final Queue<Notice> inbox = new ConcurrentLinkedQueue<>(); // Offered from any thread
+    // Main thread only: due notices in order, and the newest notice per player so replaced ones are skipped
+    private final PriorityQueue<Notice> pending = new PriorityQueue<>();
+    private final Map<UUID, Notice> latest = new HashMap<>();
+    private long tick = 0L;
+    private long sequence = 0L;
+
+    public JoinNoticeTask(NightVote plugin, VoteManager voteManager) {
+        this.plugin = plugin;
+        this.voteManager = voteManager;
+    }
+
+    // Notice for the session in the player's current world, sent after delayTicks; safe on any thread
+    public void submit(Player player, VoteSession session, long delayTicks) {
+        inbox.offer(new Notice(player, session.getWorldId(), session.getId(), delayTicks));
+    }
+
+    @Override
+    public void run() {
+        tick++;
+        Notice notice;
+        while ((notice = inbox.poll()) != null) {
+            notice.dueTick = tick + notice.dueTick; // Delay becomes a due tick on arrival
+            notice.order = sequence++;
+            latest.put(notice.player.getUniqueId(), notice); // A later join or world change replaces the earlier notice
+            pending.add(notice);
+        }
+        int sent = 0;
+        while (sent < MAX_NOTICES_PER_TICK && (notice = pending.peek()) != null && notice.dueTick <= tick) {
+            pending.poll();
+            if (!latest.remove(notice.player.getUniqueId(), notice)) {
+                continue; // Replaced by a newer one, still pending
+            }
+            if (send(notice)) {
+                sent++;
+            }
+        }
+    }
+
+    public void clear() {
+        inbox.clear();
+        pending.clear();
+        latest.clear();
+    }
+
+    private boolean send(Notice notice) {
+        Player player = notice.player;
+        if (!player.isOnline()) return false;
+        World world = player.getWorld();
+        VoteSession session = voteManager.getSession(world);
+        if (session == null || session.getId() != notice.sessionId || !world.getUID().equals(notice.worldId)) {
+            return false; // The vote ended, or the player is no longer where it runs
+        }
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("world", world.getName());
+        player.sendMessage(plugin.getMessage(player, "vote_in_progress_join_world", placeholders));
+        player.sendMessage(plugin.getMessage(player, "vote_in_progress_join_instructions", placeholders));
+        return true;
+    }
+
+    private static final class Notice implements Comparable<Notice> {
+        private final Player player;
+        private final UUID worldId;
+        private final long sessionId;
+        private long dueTick; // Delay in ticks until the main thread takes it
+        private long order;
+
+        Notice(Player player, UUID worldId, long sessionId, long delayTicks) {
+            this.player = player;
+            this.worldId = worldId;
+            this.sessionId = sessionId;
+            this.dueTick = delayTicks;
+        }
+
+        @Override
+        public int compareTo(Notice other) {
+            int byTick = Long.compare(dueTick, other.dueTick);
+            return byTick != 0 ? byTick : Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package night.votes.tasks;
+
+import night.votes.network.NetworkVoteSync;
+
+// Handles network messages received since the last tick and sends this server's vote counts.
+public class NetworkSyncTask implements Runnable {
+
+    private final NetworkVoteSync networkSync;
+
+    public NetworkSyncTask(NetworkVoteSync networkSync) {
+        this.networkSync = networkSync;
+    }
+
+    @Override
+    public void run() {
+        networkSync.tick();
+    }
+}
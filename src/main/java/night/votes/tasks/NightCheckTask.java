@@ -1,89 +1,98 @@
 package night.votes.tasks;
 
 import night.votes.NightVote;
+import night.votes.config.PluginSettings;
 import night.votes.managers.VoteManager;
+import night.votes.metrics.LatencyHistogram;
+import night.votes.metrics.PluginMetrics;
+import night.votes.trace.TraceRecorder;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
-import org.bukkit.scheduler.BukkitRunnable;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.UUID;
 
-public class NightCheckTask extends BukkitRunnable {
+// One-shot check for a single world, armed by NightScheduler to fire when night_start_tick is reached.
+public class NightCheckTask implements Runnable {
+
+    private static final long RETRY_TICKS = 100L; // Re-check while still in the window if too few players were around
 
     private final NightVote plugin;
     private final VoteManager voteManager;
+    private final NightScheduler scheduler;
+    private final UUID worldId;
+    private final boolean newCycle; // True when armed from outside the night window, i.e. this is a fresh night
+    private final LatencyHistogram checkTimer;
 
-    public NightCheckTask(NightVote plugin, VoteManager voteManager) {
+    public NightCheckTask(NightVote plugin, VoteManager voteManager, NightScheduler scheduler, UUID worldId, boolean newCycle) {
         this.plugin = plugin;
         this.voteManager = voteManager;
+        this.scheduler = scheduler;
+        this.worldId = worldId;
+        this.newCycle = newCycle;
+        this.checkTimer = plugin.getMetrics().timer(PluginMetrics.NIGHT_CHECK);
     }
 
     @Override
     public void run() {
-        if (voteManager.isVoteActive()) {
-            return; // A vote is already in progress globally, don't start another.
-        }
+        long start = System.nanoTime();
+        try {
+            scheduler.onFired(worldId);
 
-        List<World> enabledWorlds = plugin.getOnlineEnabledWorlds();
-        if (enabledWorlds.isEmpty()) {
-            return; // No configured (or loaded) worlds for auto-voting.
-        }
+            World world = Bukkit.getWorld(worldId);
+            if (world == null) {
+                return; // World was unloaded, WorldLoadEvent will arm it again
+            }
 
-        long nightStartTick = plugin.getNightStartTick();
-        // Define a reasonable "night approaching" window end, e.g., 1000 ticks after nightStartTick
-        long nightApproachingWindowEnd = nightStartTick + 1000L; // e.g., if night starts at 12550, window is 12550-13550
+            PluginSettings settings = plugin.getSettings(); // One consistent snapshot for the whole check
+            String worldName = world.getName();
 
-        for (World world : enabledWorlds) {
-            if (world.getEnvironment() != World.Environment.NORMAL) continue; // Should be filtered by getOnlineEnabledWorlds, but double-check
+            if (newCycle && voteManager.getVoteAttemptedThisCycleForWorld(worldName)) {
+                // The world went through a day since the last attempt, so this is a new night cycle.
+                voteManager.resetVoteAttemptedThisCycleForWorld(worldName);
+            }
 
             long currentTime = world.getTime();
-            String worldName = world.getName();
+            if (!NightScheduler.isInNightWindow(currentTime, settings)) {
+                // Clock moved without a TimeSkipEvent (e.g. another plugin), just recompute the wait.
+                scheduler.arm(world);
+                return;
+            }
 
-            boolean isNightApproaching = currentTime >= nightStartTick && currentTime < nightApproachingWindowEnd;
-            boolean isDayTime = currentTime < nightStartTick || currentTime > 23000L; // Before night or late night/early morning
+            if (voteManager.isVoteActive(world)) {
+                scheduler.armNextNight(world); // This world is already voting, others are armed separately
+                return;
+            }
 
-            if (isNightApproaching) {
-                if (plugin.attemptOncePerNightCycle() && voteManager.getVoteAttemptedThisCycleForWorld(worldName)) {
-                    // Vote already attempted for this world in this cycle, skip.
-                    continue;
-                }
+            if (settings.attemptOncePerNightCycle() && voteManager.getVoteAttemptedThisCycleForWorld(worldName)) {
+                // Vote already attempted for this world in this cycle, skip.
+                scheduler.armNextNight(world);
+                return;
+            }
 
-                // Check player count for this specific world
-                int playersInWorld = world.getPlayers().size();
-                int minPlayersForAuto = plugin.getMinPlayersToStartAutoVote();
-
-                if (playersInWorld >= minPlayersForAuto) {
-                    // Attempt to start vote. If successful, it sets voteActive and returns true.
-                    // We only want one vote active at a time across all worlds.
-                    if (voteManager.startVote(world, false, null)) {
-                        plugin.getLogger().info("Automatic night vote triggered for world: " + worldName);
-                        return; // Exit after successfully starting one vote.
-                    } else {
-                        // Could not start vote (e.g. another vote started *just* now by another thread/check - unlikely but possible)
-                        // Or min player check inside startVote failed (should be caught above, but defensive)
-                        // Or world was not overworld (should be caught above)
-                    }
-                } else {
-                    // Not enough players in this world for an auto vote.
-                    // Reset attempt cycle if players dropped below threshold to allow a new vote if they return
-                    // Only reset if a vote wasn't already attempted this cycle.
-                    // If voteManager.getVoteAttemptedThisCycleForWorld(worldName) is true, we don't reset it here
-                    // as it implies a vote did happen, and it should stay attempted until full day.
-                    if (!voteManager.getVoteAttemptedThisCycleForWorld(worldName)) {
-                        voteManager.resetVoteAttemptedThisCycleForWorld(worldName); // Ensure it's clear if no attempt was made
-                    }
-                    // Optional: Log this to console if desired
-                    // plugin.getLogger().info("Skipping auto-vote in " + worldName + ": " + playersInWorld + "/" + minPlayersForAuto + " players.");
-                }
-            } else if (isDayTime) {
-                // If it's day time, reset the "vote attempted" flag for this world for the *next* night.
-                if (voteManager.getVoteAttemptedThisCycleForWorld(worldName)) {
-                    voteManager.resetVoteAttemptedThisCycleForWorld(worldName);
-                     // plugin.getLogger().info("Daytime detected in " + worldName + ". Resetting night vote attempt status.");
+            // Check player count for this specific world
+            int playersInWorld = plugin.getPlatform().getPlayerCount(world);
+            int minPlayersForAuto = settings.getMinPlayersToStartAutoVote();
+
+            if (playersInWorld >= minPlayersForAuto && voteManager.startVote(world, false, null)) {
+                plugin.getLogger().info("Automatic night vote triggered for world: " + worldName);
+                TraceRecorder recorder = plugin.getTraceRecorder();
+                if (recorder != null) {
+                    recorder.recordVoteStart(world, false);
                 }
+                scheduler.armNextNight(world);
+                return;
+            }
+
+            // Not enough players in this world for an auto vote. Keep the attempt open and look again
+            // while the window lasts, in case players join.
+            if (!voteManager.getVoteAttemptedThisCycleForWorld(worldName)
+                    && currentTime + RETRY_TICKS < settings.getNightStartTick() + NightScheduler.NIGHT_WINDOW_TICKS) {
+                scheduler.schedule(world, RETRY_TICKS, false);
+            } else {
+                scheduler.armNextNight(world);
             }
+        } finally {
+            checkTimer.recordSince(start);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+package night.votes.tasks;
+
+import night.votes.NightVote;
+import night.votes.config.PluginSettings;
+import night.votes.managers.VoteManager;
+import night.votes.server.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.GameRule;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Arms one one-shot NightCheckTask per auto-vote world, timed for the exact tick night_start_tick is reached.
+ * Nothing runs during the day; the listeners re-arm a world whenever its clock or daylight cycle changes.
+ */
+public class NightScheduler {
+
+    static final long TICKS_PER_DAY = 24000L;
+    static final long NIGHT_WINDOW_TICKS = 1000L; // An auto vote may start up to this long after night_start_tick
+
+    private final NightVote plugin;
+    private final VoteManager voteManager;
+    private final Map<UUID, ScheduledTask> armedTasks = new HashMap<>();
+
+    public NightScheduler(NightVote plugin, VoteManager voteManager) {
+        this.plugin = plugin;
+        this.voteManager = voteManager;
+    }
+
+    public void armAll() {
+        for (World world : plugin.getOnlineEnabledWorlds()) {
+            arm(world);
+        }
+    }
+
+    // After a config change: only worlds whose timing or auto-vote setting changed are re-armed
+    public void rearmChanged(PluginSettings previous, PluginSettings current) {
+        if (previous.getNightStartTick() != current.getNightStartTick()) {
+            disarmAll();
+            armAll();
+            return;
+        }
+        Set<UUID> changed = new HashSet<>(previous.getEnabledWorldIds());
+        changed.addAll(current.getEnabledWorldIds());
+        for (UUID worldId : changed) {
+            if (previous.getEnabledWorldIds().contains(worldId) == current.getEnabledWorldIds().contains(worldId)) continue;
+            World world = Bukkit.getWorld(worldId);
+            if (world != null) {
+                arm(world); // Disarms a world that left the list
+            }
+        }
+    }
+
+    // (Re)computes the wait for this world from its current time. Safe to call for any world.
+    public void arm(World world) {
+        disarm(world);
+        if (!isAutoVoteWorld(world)) {
+            return;
+        }
+        PluginSettings settings = plugin.getSettings();
+        long time = world.getTime();
+        if (isInNightWindow(time, settings)) {
+            schedule(world, 1L, false); // Already night, check on the next tick
+        } else {
+            schedule(world, ticksUntilNightStart(time, settings), true);
+        }
+    }
+
+    // Used after a check inside the window: wait for the following night
+    void armNextNight(World world) {
+        disarm(world);
+        if (isAutoVoteWorld(world)) {
+            schedule(world, ticksUntilNightStart(world.getTime(), plugin.getSettings()), true);
+        }
+    }
+
+    void schedule(World world, long delayTicks, boolean newCycle) {
+        ScheduledTask task = plugin.getPlatform().runTaskLater(
+                new NightCheckTask(plugin, voteManager, this, world.getUID(), newCycle), Math.max(1L, delayTicks));
+        armedTasks.put(world.getUID(), task);
+    }
+
+    public void disarm(World world) {
+        ScheduledTask task = armedTasks.remove(world.getUID());
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    public void disarmAll() {
+        for (ScheduledTask task : armedTasks.values()) {
+            task.cancel();
+        }
+        armedTasks.clear();
+    }
+
+    // Called by the task itself when it fires, so it is no longer considered armed
+    void onFired(UUID worldId) {
+        armedTasks.remove(worldId);
+    }
+
+    public int getArmedCount() {
+        return armedTasks.size();
+    }
+
+    private boolean isAutoVoteWorld(World world) {
+        if (world.getEnvironment() != World.Environment.NORMAL) return false;
+        if (!plugin.getSettings().getEnabledWorldIds().contains(world.getUID())) return false;
+        // A frozen clock never reaches night on its own, skip the world entirely
+        return !Boolean.FALSE.equals(world.getGameRuleValue(GameRule.DO_DAYLIGHT_CYCLE));
+    }
+
+    static boolean isInNightWindow(long time, PluginSettings settings) {
+        long nightStartTick = settings.getNightStartTick();
+        return time >= nightStartTick && time < nightStartTick + NIGHT_WINDOW_TICKS;
+    }
+
+    static long ticksUntilNightStart(long time, PluginSettings settings) {
+        long ticks = Math.floorMod(settings.getNightStartTick() - time, TICKS_PER_DAY);
+        return ticks == 0 ? TICKS_PER_DAY : ticks;
+    }
+}
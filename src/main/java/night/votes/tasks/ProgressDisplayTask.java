@@ -0,0 +1,177 @@
+package night.votes.tasks;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import night.votes.NightVote;
+import night.votes.config.ProgressDisplayMode;
+import night.votes.managers.MessageManager;
+import night.votes.managers.MessageManager.MessageBundle;
+import night.votes.managers.VoteManager;
+import night.votes.managers.VoteSession;
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Shows yes/no/remaining counts and the countdown for every active session, refreshed at most once per tick
+// and only when one of those numbers changed. Rendered once per message bundle (locale) in the world, with one
+// boss bar per bundle.
+public class ProgressDisplayTask implements Runnable {
+
+    private static final int ACTIONBAR_RESEND_TICKS = 40; // Action bar text fades after roughly 3 seconds
+
+    private final NightVote plugin;
+    private final VoteManager voteManager;
+    private final Map<VoteSession, SessionDisplay> displays = new HashMap<>();
+
+    public ProgressDisplayTask(NightVote plugin, VoteManager voteManager) {
+        this.plugin = plugin;
+        this.voteManager = voteManager;
+    }
+
+    @Override
+    public void run() {
+        ProgressDisplayMode mode = plugin.getSettings().getProgressDisplayMode();
+
+        // Drop displays of sessions that ended (or of every session if the mode changed on reload)
+        Iterator<Map.Entry<VoteSession, SessionDisplay>> iterator = displays.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<VoteSession, SessionDisplay> entry = iterator.next();
+            if (voteManager.getSession(entry.getKey().getWorldId()) != entry.getKey() || entry.getValue().mode != mode) {
+                entry.getValue().dispose();
+                iterator.remove();
+            }
+        }
+
+        if (mode == ProgressDisplayMode.NONE || !voteManager.isVoteActive()) {
+            return;
+        }
+
+        for (VoteSession session : voteManager.getActiveSessions()) {
+            displays.computeIfAbsent(session, s -> new SessionDisplay(mode, s)).refresh();
+        }
+    }
+
+    public void clear() {
+        for (SessionDisplay display : displays.values()) {
+            display.dispose();
+        }
+        displays.clear();
+    }
+
+    private final class SessionDisplay {
+        private final ProgressDisplayMode mode;
+        private final VoteSession session;
+        private final int durationSeconds;
+        private final Map<MessageBundle, BossBar> bossBars = new IdentityHashMap<>(4);
+        private int lastYes = -1;
+        private int lastNo = -1;
+        private int lastRemaining = -1;
+        private int lastSeconds = -1;
+        private int ticksSinceSend = 0;
+
+        SessionDisplay(ProgressDisplayMode mode, VoteSession session) {
+            this.mode = mode;
+            this.session = session;
+            this.durationSeconds = Math.max(1, session.getSecondsRemaining());
+        }
+
+        void refresh() {
+            int yes = session.getYesVotes();
+            int no = session.getNoVotes();
+            int remaining = Math.max(0, session.getEligibleCount() - session.getVoteCount());
+            int seconds = session.getSecondsRemaining();
+            ticksSinceSend++;
+
+            boolean changed = yes != lastYes || no != lastNo || remaining != lastRemaining || seconds != lastSeconds;
+            boolean resend = mode == ProgressDisplayMode.ACTIONBAR && ticksSinceSend >= ACTIONBAR_RESEND_TICKS;
+            if (!changed && !resend) {
+                return; // Nothing new to show, no packets sent
+            }
+            lastYes = yes;
+            lastNo = no;
+            lastRemaining = remaining;
+            lastSeconds = seconds;
+            ticksSinceSend = 0;
+
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("world", session.getWorld().getName());
+            placeholders.put("yes_votes", String.valueOf(yes));
+            placeholders.put("no_votes", String.valueOf(no));
+            placeholders.put("remaining", String.valueOf(remaining));
+            placeholders.put("time", String.valueOf(seconds));
+
+            // Group the world's players by bundle, so the text is rendered once per language rather than per player
+            MessageManager messages = plugin.getMessageManager();
+            Map<MessageBundle, List<Player>> audiences = new IdentityHashMap<>(4);
+            for (Player p : plugin.getPlatform().getPlayers(session.getWorld())) {
+                audiences.computeIfAbsent(messages.bundleFor(p), bundle -> new ArrayList<>()).add(p);
+            }
+
+            if (mode == ProgressDisplayMode.BOSSBAR) {
+                double progress = Math.min(1.0, Math.max(0.0, (double) seconds / durationSeconds));
+                for (Map.Entry<MessageBundle, List<Player>> audience : audiences.entrySet()) {
+                    String text = messages.render(audience.getKey(), "progress_display", placeholders, false);
+                    BossBar bossBar = bossBars.get(audience.getKey());
+                    if (bossBar == null) {
+                        bossBar = Bukkit.createBossBar(text, BarColor.YELLOW, BarStyle.SOLID);
+                        bossBars.put(audience.getKey(), bossBar);
+                    } else {
+                        bossBar.setTitle(text);
+                    }
+                    bossBar.setProgress(progress);
+                    syncBossBarPlayers(bossBar, audience.getValue());
+                }
+                // Bars of languages nobody in the world uses any more, e.g. after a reload or a locale change
+                Iterator<Map.Entry<MessageBundle, BossBar>> bars = bossBars.entrySet().iterator();
+                while (bars.hasNext()) {
+                    Map.Entry<MessageBundle, BossBar> bar = bars.next();
+                    if (!audiences.containsKey(bar.getKey())) {
+                        bar.getValue().removeAll();
+                        bars.remove();
+                    }
+                }
+            } else {
+                for (Map.Entry<MessageBundle, List<Player>> audience : audiences.entrySet()) {
+                    String text = messages.render(audience.getKey(), "progress_display", placeholders, false);
+                    BaseComponent[] components = TextComponent.fromLegacyText(text);
+                    for (Player p : audience.getValue()) {
+                        p.spigot().sendMessage(ChatMessageType.ACTION_BAR, components);
+                    }
+                }
+            }
+        }
+
+        // Players joining or leaving the world are picked up on the next change (at least once per second)
+        private void syncBossBarPlayers(BossBar bossBar, Collection<Player> audience) {
+            Set<Player> inWorld = new HashSet<>(audience);
+            for (Player p : bossBar.getPlayers()) {
+                if (!inWorld.remove(p)) {
+                    bossBar.removePlayer(p);
+                }
+            }
+            for (Player p : inWorld) {
+                bossBar.addPlayer(p);
+            }
+        }
+
+        void dispose() {
+            for (BossBar bossBar : bossBars.values()) {
+                bossBar.removeAll();
+            }
+            bossBars.clear();
+        }
+    }
+}
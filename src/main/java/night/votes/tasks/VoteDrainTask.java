@@ -0,0 +1,49 @@
+package night.votes.tasks;
+
+import night.votes.managers.VoteManager;
+import night.votes.managers.VoteQueue;
+import night.votes.managers.VoteQueue.QueuedVote;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Applies every chat vote queued since the last tick in one main-thread pass.
+public class VoteDrainTask implements Runnable {
+
+    private final VoteManager voteManager;
+    private final VoteQueue voteQueue;
+    // Reused between ticks, the drain only ever runs on the main thread
+    private final List<QueuedVote> drained = new ArrayList<>();
+    private final List<QueuedVote> batch = new ArrayList<>();
+    private final Set<UUID> seenPlayers = new HashSet<>();
+
+    public VoteDrainTask(VoteManager voteManager, VoteQueue voteQueue) {
+        this.voteManager = voteManager;
+        this.voteQueue = voteQueue;
+    }
+
+    @Override
+    public void run() {
+        if (voteQueue.isEmpty()) {
+            return;
+        }
+        voteQueue.drainTo(drained);
+        for (QueuedVote vote : drained) {
+            if (seenPlayers.add(vote.getPlayerId())) { // First vote per player this tick wins, repeats are dropped
+                batch.add(vote);
+            } else {
+                vote.releaseClaim();
+            }
+        }
+        try {
+            voteManager.applyVoteBatch(batch);
+        } finally {
+            drained.clear();
+            batch.clear();
+            seenPlayers.clear();
+        }
+    }
+}
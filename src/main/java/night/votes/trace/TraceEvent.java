@@ -0,0 +1,131 @@
+package night.votes.trace;
+
+import night.votes.history.VoteOutcome;
+
+import java.util.UUID;
+
+/**
+ * One event of a vote traffic trace. Which fields are set depends on the type; unset ones are null, 0 or false.
+ * Ticks and millis are counted from the start of the recording.
+ */
+public final class TraceEvent {
+
+    public enum Type {
+        PRESENT,          // Player online when recording started: player, world
+        JOIN,             // player, world
+        QUIT,             // player
+        WORLD_CHANGE,     // player, world (from), toWorld
+        CHAT_VOTE,        // player, world, yes
+        TIME_SET,         // world, time (the world's time after the change)
+        COMMAND,          // player (null for console), text (the /nv arguments)
+        VOTE_START,       // world, manual; votes not started by a command, i.e. automatic ones
+        VOTE_IN_PROGRESS, // world; a vote already running when recording started, its outcome cannot be replayed
+        OUTCOME           // world, outcome, yesVotes, noVotes, eligibleVoters
+    }
+
+    private final Type type;
+    private final long tick;
+    private final long millis;
+    private final UUID playerId;
+    private final String playerName;
+    private final UUID worldId;
+    private final String worldName;
+    private final UUID toWorldId;
+    private final String toWorldName;
+    private final boolean flag; // yes for CHAT_VOTE, manual for VOTE_START
+    private final long time;
+    private final String text;
+    private final VoteOutcome outcome;
+    private final int yesVotes;
+    private final int noVotes;
+    private final int eligibleVoters;
+
+    TraceEvent(Type type, long tick, long millis, UUID playerId, String playerName, UUID worldId, String worldName,
+               UUID toWorldId, String toWorldName, boolean flag, long time, String text, VoteOutcome outcome,
+               int yesVotes, int noVotes, int eligibleVoters) {
+        this.type = type;
+        this.tick = tick;
+        this.millis = millis;
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.worldId = worldId;
+        this.worldName = worldName;
+        this.toWorldId = toWorldId;
+        this.toWorldName = toWorldName;
+        this.flag = flag;
+        this.time = time;
+        this.text = text;
+        this.outcome = outcome;
+        this.yesVotes = yesVotes;
+        this.noVotes = noVotes;
+        this.eligibleVoters = eligibleVoters;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public UUID getWorldId() {
+        return worldId;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public UUID getToWorldId() {
+        return toWorldId;
+    }
+
+    public String getToWorldName() {
+        return toWorldName;
+    }
+
+    public boolean isYes() {
+        return flag;
+    }
+
+    public boolean isManual() {
+        return flag;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public VoteOutcome getOutcome() {
+        return outcome;
+    }
+
+    public int getYesVotes() {
+        return yesVotes;
+    }
+
+    public int getNoVotes() {
+        return noVotes;
+    }
+
+    public int getEligibleVoters() {
+        return eligibleVoters;
+    }
+}
@@ -0,0 +1,47 @@
+package night.votes.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+// Shared constants and varint helpers of the .nvt trace format
+final class TraceFormat {
+
+    static final int MAGIC = 0x4E565452; // "NVTR"
+    static final int VERSION = 1;
+
+    // Definitions give a player or world the next index; every later reference is that varint index
+    static final int DEFINE_PLAYER = 0x40;
+    static final int DEFINE_WORLD = 0x41;
+
+    private TraceFormat() {
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in trace");
+    }
+
+    static void writeUuid(DataOutput out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
@@ -0,0 +1,146 @@
+package night.votes.trace;
+
+import night.votes.history.VoteOutcome;
+import night.votes.trace.TraceEvent.Type;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads a trace written by TraceRecorder, one event at a time. A trace cut short (server crash) simply ends
+ * at the last complete event.
+ */
+public class TraceReader implements Closeable {
+
+    private static final Type[] TYPES = Type.values();
+    private static final VoteOutcome[] OUTCOMES = VoteOutcome.values();
+
+    private final DataInputStream in;
+    private final long startMillis;
+    private final List<UUID> playerIds = new ArrayList<>();
+    private final List<String> playerNames = new ArrayList<>();
+    private final List<UUID> worldIds = new ArrayList<>();
+    private final List<String> worldNames = new ArrayList<>();
+    private long tick;
+    private long millis;
+
+    public TraceReader(File file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        try {
+            if (in.readInt() != TraceFormat.MAGIC) {
+                throw new IOException(file.getName() + " is not a NightVote trace");
+            }
+            int version = in.readUnsignedByte();
+            if (version != TraceFormat.VERSION) {
+                throw new IOException("Unsupported trace version " + version);
+            }
+            this.startMillis = in.readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    // Null at the end of the trace
+    public TraceEvent next() throws IOException {
+        try {
+            int code;
+            while (true) {
+                code = in.readUnsignedByte();
+                if (code == TraceFormat.DEFINE_PLAYER) {
+                    playerIds.add(TraceFormat.readUuid(in));
+                    playerNames.add(in.readUTF());
+                } else if (code == TraceFormat.DEFINE_WORLD) {
+                    worldIds.add(TraceFormat.readUuid(in));
+                    worldNames.add(in.readUTF());
+                } else {
+                    break;
+                }
+            }
+            if (code >= TYPES.length) {
+                throw new IOException("Unknown trace event type " + code);
+            }
+            Type type = TYPES[code];
+            tick += TraceFormat.readVarLong(in);
+            millis += TraceFormat.readVarLong(in);
+
+            int player = -1;
+            int world = -1;
+            int toWorld = -1;
+            boolean flag = false;
+            long time = 0L;
+            String text = null;
+            VoteOutcome outcome = null;
+            int yes = 0;
+            int no = 0;
+            int eligible = 0;
+            switch (type) {
+                case PRESENT:
+                case JOIN:
+                case CHAT_VOTE:
+                    player = readIndex();
+                    world = readIndex();
+                    if (type == Type.CHAT_VOTE) flag = in.readBoolean();
+                    break;
+                case QUIT:
+                    player = readIndex();
+                    break;
+                case WORLD_CHANGE:
+                    player = readIndex();
+                    world = readIndex();
+                    toWorld = readIndex();
+                    break;
+                case TIME_SET:
+                    world = readIndex();
+                    time = TraceFormat.readVarLong(in);
+                    break;
+                case COMMAND:
+                    player = readIndex() - 1; // 0 is the console
+                    text = in.readUTF();
+                    break;
+                case VOTE_START:
+                    world = readIndex();
+                    flag = in.readBoolean();
+                    break;
+                case VOTE_IN_PROGRESS:
+                    world = readIndex();
+                    break;
+                case OUTCOME:
+                    world = readIndex();
+                    outcome = OUTCOMES[in.readUnsignedByte()];
+                    yes = readIndex();
+                    no = readIndex();
+                    eligible = readIndex();
+                    break;
+            }
+            return new TraceEvent(type, tick, millis,
+                    player >= 0 ? playerIds.get(player) : null, player >= 0 ? playerNames.get(player) : null,
+                    world >= 0 ? worldIds.get(world) : null, world >= 0 ? worldNames.get(world) : null,
+                    toWorld >= 0 ? worldIds.get(toWorld) : null, toWorld >= 0 ? worldNames.get(toWorld) : null,
+                    flag, time, text, outcome, yes, no, eligible);
+        } catch (EOFException e) {
+            return null; // End of trace, or a partly written last event
+        }
+    }
+
+    private int readIndex() throws IOException {
+        return (int) TraceFormat.readVarLong(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
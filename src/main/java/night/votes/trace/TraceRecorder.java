@@ -0,0 +1,264 @@
+package night.votes.trace;
+
+import night.votes.history.VoteRecord;
+import night.votes.trace.TraceEvent.Type;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in recorder of vote traffic (chat votes, joins, quits, world changes, time changes, commands and
+ * outcomes) to a compact binary trace for offline replay. Players and worlds are written once and then
+ * referenced by a varint index; timestamps are varint tick and millisecond deltas.
+ * The record methods are non-blocking and safe from any thread; a background thread does the writing.
+ */
+public class TraceRecorder {
+
+    private static final int MAX_BATCH = 512;
+
+    private final File file;
+    private final long maxBytes;
+    private final Logger logger;
+    private final long startMillis = System.currentTimeMillis();
+    private volatile long currentTick = 0; // Advanced by the plugin's tick task
+
+    private final BlockingQueue<TraceEvent> pending = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private volatile long eventsWritten = 0;
+
+    // Only touched by the writer thread
+    private DataOutputStream out;
+    private long lastTick;
+    private long lastMillis;
+    private final Map<UUID, Integer> playerIndex = new HashMap<>();
+    private final Map<UUID, Integer> worldIndex = new HashMap<>();
+
+    public TraceRecorder(File file, long maxBytes, Logger logger) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.logger = logger;
+        this.writerThread = new Thread(this::writeLoop, "NightVote-TraceWriter");
+        this.writerThread.setDaemon(true);
+    }
+
+    public void start() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        out.writeInt(TraceFormat.MAGIC);
+        out.writeByte(TraceFormat.VERSION);
+        out.writeLong(startMillis);
+        writerThread.start();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getEventsWritten() {
+        return eventsWritten;
+    }
+
+    public boolean isRecording() {
+        return running;
+    }
+
+    // Called once per server tick while recording
+    public void tick() {
+        currentTick++;
+    }
+
+    // Stops accepting events, writes what is queued and closes the file
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(5000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void recordPresent(Player player) {
+        add(Type.PRESENT, player.getUniqueId(), player.getName(), player.getWorld(), null, false, 0L, null);
+    }
+
+    public void recordJoin(Player player) {
+        add(Type.JOIN, player.getUniqueId(), player.getName(), player.getWorld(), null, false, 0L, null);
+    }
+
+    public void recordQuit(Player player) {
+        add(Type.QUIT, player.getUniqueId(), player.getName(), null, null, false, 0L, null);
+    }
+
+    public void recordWorldChange(Player player, World from) {
+        add(Type.WORLD_CHANGE, player.getUniqueId(), player.getName(), from, player.getWorld(), false, 0L, null);
+    }
+
+    public void recordChatVote(Player player, World world, boolean yes) {
+        add(Type.CHAT_VOTE, player.getUniqueId(), player.getName(), world, null, yes, 0L, null);
+    }
+
+    public void recordTimeSet(World world, long time) {
+        add(Type.TIME_SET, null, null, world, null, false, time, null);
+    }
+
+    public void recordCommand(CommandSender sender, String[] args) {
+        Player player = sender instanceof Player ? (Player) sender : null;
+        add(Type.COMMAND, player != null ? player.getUniqueId() : null, player != null ? player.getName() : null,
+                null, null, false, 0L, String.join(" ", args));
+    }
+
+    public void recordVoteStart(World world, boolean manual) {
+        add(Type.VOTE_START, null, null, world, null, manual, 0L, null);
+    }
+
+    public void recordVoteInProgress(World world) {
+        add(Type.VOTE_IN_PROGRESS, null, null, world, null, false, 0L, null);
+    }
+
+    // Registered as a VoteManager outcome listener while recording
+    public void recordOutcome(VoteRecord record) {
+        if (!running) return;
+        pending.offer(new TraceEvent(Type.OUTCOME, currentTick, System.currentTimeMillis() - startMillis, null, null,
+                record.getWorldId(), record.getWorldName(), null, null, false, 0L, null, record.getOutcome(),
+                record.getYesVotes(), record.getNoVotes(), record.getEligibleVoters()));
+    }
+
+    private void add(Type type, UUID playerId, String playerName, World world, World toWorld, boolean flag, long time,
+                     String text) {
+        if (!running) return;
+        pending.offer(new TraceEvent(type, currentTick, System.currentTimeMillis() - startMillis, playerId, playerName,
+                world != null ? world.getUID() : null, world != null ? world.getName() : null,
+                toWorld != null ? toWorld.getUID() : null, toWorld != null ? toWorld.getName() : null,
+                flag, time, text, null, 0, 0, 0));
+    }
+
+    private void writeLoop() {
+        List<TraceEvent> batch = new ArrayList<>();
+        try {
+            while (running || !pending.isEmpty()) {
+                TraceEvent first = pending.poll(500L, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                pending.drainTo(batch, MAX_BATCH - 1);
+                for (TraceEvent event : batch) {
+                    write(event);
+                }
+                out.flush();
+                batch.clear();
+                if (out.size() >= maxBytes) {
+                    logger.warning("Trace " + file.getName() + " reached its size limit, recording stopped");
+                    running = false;
+                    pending.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Trace writer stopped, " + (batch.size() + pending.size()) + " events not written", e);
+            running = false;
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not close trace " + file.getName(), e);
+            }
+        }
+    }
+
+    private void write(TraceEvent event) throws IOException {
+        int player = event.getPlayerId() != null ? playerRef(event.getPlayerId(), event.getPlayerName()) : -1;
+        int world = event.getWorldId() != null ? worldRef(event.getWorldId(), event.getWorldName()) : -1;
+        int toWorld = event.getToWorldId() != null ? worldRef(event.getToWorldId(), event.getToWorldName()) : -1;
+
+        // Chat events are queued from async threads and may arrive a little out of order, timestamps never go back
+        long tick = Math.max(lastTick, event.getTick());
+        long millis = Math.max(lastMillis, event.getMillis());
+        out.writeByte(event.getType().ordinal());
+        TraceFormat.writeVarLong(out, tick - lastTick);
+        TraceFormat.writeVarLong(out, millis - lastMillis);
+        lastTick = tick;
+        lastMillis = millis;
+        switch (event.getType()) {
+            case PRESENT:
+            case JOIN:
+            case CHAT_VOTE:
+                TraceFormat.writeVarLong(out, player);
+                TraceFormat.writeVarLong(out, world);
+                if (event.getType() == Type.CHAT_VOTE) out.writeBoolean(event.isYes());
+                break;
+            case QUIT:
+                TraceFormat.writeVarLong(out, player);
+                break;
+            case WORLD_CHANGE:
+                TraceFormat.writeVarLong(out, player);
+                TraceFormat.writeVarLong(out, world);
+                TraceFormat.writeVarLong(out, toWorld);
+                break;
+            case TIME_SET:
+                TraceFormat.writeVarLong(out, world);
+                TraceFormat.writeVarLong(out, event.getTime());
+                break;
+            case COMMAND:
+                TraceFormat.writeVarLong(out, player + 1L); // 0 is the console
+                out.writeUTF(event.getText());
+                break;
+            case VOTE_START:
+                TraceFormat.writeVarLong(out, world);
+                out.writeBoolean(event.isManual());
+                break;
+            case VOTE_IN_PROGRESS:
+                TraceFormat.writeVarLong(out, world);
+                break;
+            case OUTCOME:
+                TraceFormat.writeVarLong(out, world);
+                out.writeByte(event.getOutcome().ordinal());
+                TraceFormat.writeVarLong(out, event.getYesVotes());
+                TraceFormat.writeVarLong(out, event.getNoVotes());
+                TraceFormat.writeVarLong(out, event.getEligibleVoters());
+                break;
+        }
+        eventsWritten++;
+    }
+
+    private int playerRef(UUID id, String name) throws IOException {
+        Integer index = playerIndex.get(id);
+        if (index != null) return index;
+        index = playerIndex.size();
+        playerIndex.put(id, index);
+        out.writeByte(TraceFormat.DEFINE_PLAYER);
+        TraceFormat.writeUuid(out, id);
+        out.writeUTF(name != null ? name : "");
+        return index;
+    }
+
+    private int worldRef(UUID id, String name) throws IOException {
+        Integer index = worldIndex.get(id);
+        if (index != null) return index;
+        index = worldIndex.size();
+        worldIndex.put(id, index);
+        out.writeByte(TraceFormat.DEFINE_WORLD);
+        TraceFormat.writeUuid(out, id);
+        out.writeUTF(name != null ? name : "");
+        return index;
+    }
+}
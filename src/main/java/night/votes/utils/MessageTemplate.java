@@ -0,0 +1,82 @@
+package night.votes.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message compiled once from config into pre-colorized literal segments and %placeholder% slots.
+ * Rendering is a single StringBuilder pass, no config lookups or replace loops.
+ */
+public final class MessageTemplate {
+
+    private final String[] literals; // Always one more literal than placeholders
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    public static MessageTemplate compile(String raw) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < raw.length()) {
+            char c = raw.charAt(i);
+            if (c == '%') {
+                int end = raw.indexOf('%', i + 1);
+                if (end > i + 1 && isPlaceholderName(raw, i + 1, end)) {
+                    literals.add(Utils.colorize(literal.toString()));
+                    placeholders.add(raw.substring(i + 1, end));
+                    literal.setLength(0);
+                    i = end + 1;
+                    continue;
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(Utils.colorize(literal.toString()));
+        return new MessageTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    private static boolean isPlaceholderName(String raw, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_')) return false;
+        }
+        return true;
+    }
+
+    public String render(Map<String, String> values) {
+        if (placeholders.length == 0) {
+            return literals[0];
+        }
+        StringBuilder builder = new StringBuilder(literalLength + placeholders.length * 16);
+        renderTo(builder, values);
+        return builder.toString();
+    }
+
+    public void renderTo(StringBuilder builder, Map<String, String> values) {
+        builder.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            String key = placeholders[i];
+            String value = values != null ? values.get(key) : null;
+            if (value != null) {
+                builder.append(Utils.colorize(value)); // Values like "&aYES" carry their own colors
+            } else if (values != null && values.containsKey(key)) {
+                builder.append("null");
+            } else {
+                builder.append('%').append(key).append('%'); // Unknown placeholders are left as typed
+            }
+            builder.append(literals[i + 1]);
+        }
+    }
+}
@@ -1,20 +1,101 @@
 package night.votes.utils;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import net.md_5.bungee.api.ChatColor;
 
 public class Utils {
-    
+
+    private static final String COLOR_CODES = "0123456789AaBbCcDdEeFfKkLlMmNnOoRrXx";
+    private static final int COLORIZE_CACHE_SIZE = 512;
+    private static final int COLORIZE_CACHE_MAX_LENGTH = 256; // Longer strings are translated but not cached
+
+    // Access-ordered so the eldest entry is the least recently used one
+    private static final Map<String, String> colorizeCache = new LinkedHashMap<String, String>(COLORIZE_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > COLORIZE_CACHE_SIZE;
+        }
+    };
+
     public static String colorize(String msg) {
-        Matcher match = Pattern.compile("#[a-fA-F0-9]{6}").matcher(msg);
-        while (match.find()) {
-            String color = msg.substring(match.start(), match.end());
-            msg = msg.replace(color, String.valueOf(ChatColor.of(color)));
-            match = Pattern.compile("#[a-fA-F0-9]{6}").matcher(msg);
+        if (msg == null || (msg.indexOf('&') < 0 && msg.indexOf('#') < 0)) {
+            return msg; // Nothing to translate
+        }
+        if (msg.length() > COLORIZE_CACHE_MAX_LENGTH) {
+            return translateColors(msg);
+        }
+        synchronized (colorizeCache) { // Also called from async chat threads
+            String cached = colorizeCache.get(msg);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String translated = translateColors(msg);
+        synchronized (colorizeCache) {
+            colorizeCache.put(msg, translated);
+        }
+        return translated;
+    }
+
+    // Single linear pass over & codes and #RRGGBB hex colors, same output as ChatColor.of + translateAlternateColorCodes
+    private static String translateColors(String msg) {
+        int length = msg.length();
+        StringBuilder builder = null;
+        int copiedUpTo = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = msg.charAt(i);
+            if (c == '#' && i + 7 <= length && isHexColor(msg, i + 1)) {
+                if (builder == null) builder = new StringBuilder(length + 16);
+                builder.append(msg, copiedUpTo, i);
+                builder.append(ChatColor.COLOR_CHAR).append('x');
+                for (int j = i + 1; j < i + 7; j++) {
+                    builder.append(ChatColor.COLOR_CHAR).append(msg.charAt(j));
+                }
+                i += 6;
+                copiedUpTo = i + 1;
+            } else if (c == '&' && i + 1 < length && COLOR_CODES.indexOf(msg.charAt(i + 1)) > -1) {
+                if (builder == null) builder = new StringBuilder(length + 16);
+                builder.append(msg, copiedUpTo, i);
+                builder.append(ChatColor.COLOR_CHAR).append(Character.toLowerCase(msg.charAt(i + 1)));
+                i++;
+                copiedUpTo = i + 1;
+            }
+        }
+
+        if (builder == null) {
+            return msg;
+        }
+        builder.append(msg, copiedUpTo, length);
+        return builder.toString();
+    }
+
+    private static boolean isHexColor(String msg, int start) {
+        for (int i = start; i < start + 6; i++) {
+            char c = msg.charAt(i);
+            boolean hex = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            if (!hex) return false;
         }
-        return ChatColor.translateAlternateColorCodes('&', msg);
+        return true;
     }
-    
+
+    // Chat vote matching: TRUE for Y/yes, FALSE for N/no, null for anything else
+    public static Boolean parseVoteChoice(String message) {
+        String choice = message.trim();
+        switch (choice.length()) {
+            case 1:
+                if (choice.equalsIgnoreCase("Y")) return Boolean.TRUE;
+                if (choice.equalsIgnoreCase("N")) return Boolean.FALSE;
+                return null;
+            case 2:
+                return choice.equalsIgnoreCase("no") ? Boolean.FALSE : null;
+            case 3:
+                return choice.equalsIgnoreCase("yes") ? Boolean.TRUE : null;
+            default:
+                return null;
+        }
+    }
+
     // Add more utility methods here
-}
\ No newline at end of file
+}